@@ -0,0 +1,42 @@
+package Benchmark;
+
+import Blockchain.Blockchain;
+import Blockchain.Network;
+import Blockchain.Node;
+import StaleBlocks.SBBlockchain;
+import java.util.ArrayList;
+
+/**
+ * Node which never switches to received Blockchains and stops its Network
+ * once a fixed number of blocks has been found in total.
+ */
+class BenchNode extends Node {
+    private static final int BLOCKS = 20;
+
+    BenchNode(Network network, double difficulty, String name) {
+        super(network, new SBBlockchain(difficulty), name);
+    }
+
+    static ArrayList<Node> createNodes(Network network, int n, double difficulty) {
+        ArrayList<Node> nodes = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            nodes.add(new BenchNode(network, difficulty, "N" + i));
+        }
+        return nodes;
+    }
+
+    @Override
+    protected boolean ignoreBlockchain(Blockchain newChain, Node sender) {
+        return true;
+    }
+
+    @Override
+    protected void onChoice(Blockchain oldChain, Blockchain newChain) {}
+
+    @Override
+    protected void onBlockMined() {
+        //Blocks are numbered in the order they are found
+        if (blockchain.getTip() >= BLOCKS)
+            getNetwork().stop();
+    }
+}
@@ -0,0 +1,58 @@
+package Benchmark;
+
+import Blockchain.EventNetwork;
+import Blockchain.Network;
+import Blockchain.Node;
+import Blockchain.Peers.Peer;
+import Blockchain.Util.Logger;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Broadcast: a single Node finds a block in almost every trial and sends it to all its Peers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+
+    //Latency of all edges
+    private static final int LATENCY = 10;
+
+    @Param({"10", "100", "1000"})
+    public int peers;
+
+    @Setup
+    public void setup() {
+        Logger.setLevel(Level.OFF);
+    }
+
+    @Benchmark
+    public Network blockFound() {
+        EventNetwork network = new EventNetwork(1);
+        ArrayList<Node> nodes = new ArrayList<>();
+        nodes.add(new BenchNode(network, 0.999999, "Miner"));
+        nodes.addAll(BenchNode.createNodes(network, peers, 1e-15));
+        for (int i = 1; i <= peers; i++) {
+            nodes.get(0).addPeer(new Peer(nodes.get(i), LATENCY));
+        }
+        network.setNodes(nodes);
+        network.run();
+        return network;
+    }
+}
@@ -0,0 +1,66 @@
+package Benchmark;
+
+import Blockchain.Util.Graph;
+import Blockchain.Util.GraphUtil;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The graph algorithms behind graph based topologies at several sizes and densities.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+
+    //Mean latency of all edges
+    private static final int LATENCY = 10;
+
+    @Param({"100", "1000"})
+    public int n;
+
+    @Param({"0.1", "0.8"})
+    public double density;
+
+    private long edges;
+    private Graph g;
+
+    @Setup
+    public void setup() {
+        edges = (long) (density * n * (n - 1) / 2);
+        g = GraphUtil.rndGraph(n, edges, LATENCY);
+    }
+
+    @Benchmark
+    public Graph rndGraph() {
+        return GraphUtil.rndGraph(n, edges, LATENCY);
+    }
+
+    @Benchmark
+    public long[] dijkstra() {
+        return GraphUtil.dijkstra(g, 0);
+    }
+
+    @Benchmark
+    public long[][] apsp() {
+        return GraphUtil.apsp(g);
+    }
+
+    @Benchmark
+    public long[][] floydWarshall() {
+        return GraphUtil.floydWarshall(g);
+    }
+}
@@ -0,0 +1,52 @@
+package Benchmark;
+
+import Blockchain.EventNetwork;
+import Blockchain.Network;
+import Blockchain.Util.Logger;
+import DoubleSpend.Parameters.MiningEnum;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mining loop: Nodes without Peers mine until a fixed number of blocks has been found.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MiningBenchmark {
+
+    @Param({"BERNOULLI", "GEOMETRIC"})
+    public MiningEnum mining;
+
+    @Param({"10", "1000"})
+    public int nodes;
+
+    @Setup
+    public void setup() {
+        Logger.setLevel(Level.OFF);
+    }
+
+    @Benchmark
+    public Network mine() {
+        EventNetwork network = new EventNetwork(1);
+        network.setGeometricMining(mining == MiningEnum.GEOMETRIC);
+        //About one block per 100 rounds of the whole Network
+        network.setNodes(BenchNode.createNodes(network, nodes, 1.0 / (1000.0 * nodes)));
+        network.run();
+        return network;
+    }
+}
@@ -0,0 +1,63 @@
+package Benchmark;
+
+import Blockchain.Util.Logger;
+import Blockchain.Util.Util;
+import DoubleSpend.DSSimulation;
+import DoubleSpend.Parameters;
+import DoubleSpend.Parameters.EngineEnum;
+import DoubleSpend.Parameters.MiningEnum;
+import DoubleSpend.Parameters.ParametersBuilder;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end double spend simulation, reproducible on a single thread with a fixed seed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulationBenchmark {
+
+    //Seed of all randomness
+    private static final long SEED = 42;
+
+    private Parameters p;
+
+    @Setup
+    public void setup() {
+        p = (new ParametersBuilder())
+                .setEngine(EngineEnum.EVENT)
+                .setMining(MiningEnum.GEOMETRIC)
+                .setRuns(20)
+                .setParallelRuns(1)
+                .setLogLevel(Level.OFF)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Util.clearSeed();
+    }
+
+    @Benchmark
+    public DSSimulation doubleSpend() {
+        Util.setSeed(SEED);
+        DSSimulation sim = new DSSimulation(p);
+        sim.start();
+        return sim;
+    }
+}
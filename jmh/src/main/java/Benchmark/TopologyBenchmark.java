@@ -0,0 +1,112 @@
+package Benchmark;
+
+import Blockchain.EventNetwork;
+import Blockchain.Node;
+import Blockchain.Peers.AdjMatrixPeerStrategy;
+import Blockchain.Peers.BoolMatrixPeerStrategy;
+import Blockchain.Peers.ConstantPeerStrategy;
+import Blockchain.Peers.EuclideanKnnPeerStrategy;
+import Blockchain.Peers.EuclideanPeerStrategy;
+import Blockchain.Peers.FilePeerStrategy;
+import Blockchain.Peers.PeerStrategy;
+import Blockchain.Peers.RndGraphPeerStrategy;
+import Blockchain.Util.Graph;
+import Blockchain.Util.GraphLoader;
+import Blockchain.Util.GraphUtil;
+import DoubleSpend.Parameters.DoubleParameter;
+import DoubleSpend.Parameters.IntParameter;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Connecting the Nodes of a Network by each PeerStrategy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopologyBenchmark {
+
+    //Mean latency of all edges
+    private static final int LATENCY = 10;
+
+    //Number of Nodes
+    private static final int NODES = 200;
+
+    @Param({"CONSTANT", "EUCLIDEAN", "EUCLIDEAN_KNN", "RANDOM_0.1", "RANDOM_0.8", "BOOLEAN", "ADJACENCY", "FILE"})
+    public String strategy;
+
+    private ArrayList<Node> nodes;
+    private PeerStrategy ps;
+    private File topology;
+
+    @Setup
+    public void setup() throws IOException {
+        nodes = BenchNode.createNodes(new EventNetwork(1), NODES, 1e-9);
+        Graph g = GraphUtil.rndGraph(NODES, NODES * 8, LATENCY);
+        switch (strategy) {
+            case "CONSTANT":
+                ps = new ConstantPeerStrategy(new IntParameter(LATENCY));
+                break;
+            case "EUCLIDEAN":
+                ps = new EuclideanPeerStrategy(new IntParameter(LATENCY));
+                break;
+            case "EUCLIDEAN_KNN":
+                ps = new EuclideanKnnPeerStrategy(new IntParameter(LATENCY), 8, 0);
+                break;
+            case "RANDOM_0.1":
+                ps = new RndGraphPeerStrategy(new DoubleParameter(0.1), new IntParameter(LATENCY));
+                break;
+            case "RANDOM_0.8":
+                ps = new RndGraphPeerStrategy(new DoubleParameter(0.8), new IntParameter(LATENCY));
+                break;
+            case "BOOLEAN":
+            case "ADJACENCY":
+                int[][] bool = new int[NODES][NODES];
+                long[][] adj = new long[NODES][NODES];
+                for (int v = 0; v < NODES; v++) {
+                    for (int e = g.begin(v); e < g.end(v); e++) {
+                        bool[v][g.target(e)] = 1;
+                        adj[v][g.target(e)] = g.weight(e);
+                    }
+                }
+                ps = strategy.equals("BOOLEAN") ? new BoolMatrixPeerStrategy(bool, true, new IntParameter(LATENCY))
+                        : new AdjMatrixPeerStrategy(adj);
+                break;
+            case "FILE":
+                topology = File.createTempFile("topology", ".bin");
+                GraphLoader.writeBinary(g, topology.getPath());
+                ps = new FilePeerStrategy(topology.getPath(), LATENCY);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (topology != null)
+            topology.delete();
+    }
+
+    @Benchmark
+    public long connectPeers() {
+        return ps.connectPeers(nodes);
+    }
+}
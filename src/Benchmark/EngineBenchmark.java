@@ -0,0 +1,75 @@
+package Benchmark;
+
+import Blockchain.Peers.ConstantPeerStrategy;
+import Blockchain.Util.Logger;
+import DoubleSpend.Parameters;
+import DoubleSpend.Parameters.EngineEnum;
+import DoubleSpend.Parameters.IntParameter;
+import DoubleSpend.Parameters.ParametersBuilder;
+import StaleBlocks.SBSimulation;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.logging.Level;
+
+/**
+ * Compares the throughput and memory usage of the platform thread engine with the
+ * virtual thread engine by mining a fixed number of blocks in Networks of increasing size.
+ * Usage: java Benchmark.EngineBenchmark [nodes...]
+ */
+public class EngineBenchmark {
+
+    //Expected number of mining rounds until any Node in the Network finds a block
+    private static final int ROUNDS_PER_BLOCK = 100;
+
+    //Number of blocks mined per measurement
+    private static final int BLOCKS = 50;
+
+    public static void main(String[] args) {
+        int[] sizes = {100, 1000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        Logger.setLevel(Level.OFF);
+        System.out.println("engine    nodes   blocks/s  peak threads  peak heap [MB]");
+        for (int nodes : sizes) {
+            measure(EngineEnum.THREADED, nodes);
+            measure(EngineEnum.VIRTUAL, nodes);
+        }
+    }
+
+    private static void measure(EngineEnum engine, int nodes) {
+        Parameters p = (new ParametersBuilder())
+                .setTrustedNodes(nodes - 1)
+                .setAttackerNodes(1)
+                .setDifficulty(1.0 / (10.0 * nodes * ROUNDS_PER_BLOCK))
+                .setEpsilon(1.0 / (100.0 * BLOCKS))
+                .setEngine(engine)
+                .build();
+        SBSimulation sim = new SBSimulation(p, new ConstantPeerStrategy(new IntParameter(10)));
+
+        System.gc();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+
+        long start = System.nanoTime();
+        sim.start();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.printf("%-8s %6d %10.1f %13d %15d\n", engine, nodes,
+                sim.getBlocks() / seconds, threads.getPeakThreadCount(), peakHeap >> 20);
+    }
+}
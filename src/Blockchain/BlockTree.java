@@ -0,0 +1,167 @@
+package Blockchain;
+
+import java.util.Arrays;
+
+/**
+ * Contains all blocks mined during one run of a Network. Blocks are immutable and
+ * identified by their index, parent, height and miner are stored in chunked primitive
+ * arrays. A Blockchain only points to its last block, so copies are free and forks
+ * share their common prefix.
+ */
+public class BlockTree {
+    //Index of the first block, which is contained in every Blockchain
+    public static final int GENESIS = 0;
+
+    //Miner of the genesis block
+    public static final int NO_MINER = -1;
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    //Chunks of block data. Entries are written once before the block's index is published.
+    private volatile int[][] parents;
+    private volatile int[][] heights;
+    private volatile int[][] miners;
+
+    //Number of blocks in this tree
+    private int size;
+
+    /**
+     * Creates a new tree containing only the genesis block.
+     */
+    public BlockTree() {
+        this.parents = new int[0][];
+        this.heights = new int[0][];
+        this.miners = new int[0][];
+        this.size = 0;
+        append(GENESIS, NO_MINER, 0);
+    }
+
+    /**
+     * Adds a new block on top of the given parent.
+     * @param parent The index of the parent block
+     * @param miner The index of the Node which mined the block
+     * @return The index of the new block
+     */
+    public int append(int parent, int miner) {
+        return append(parent, miner, getHeight(parent) + 1);
+    }
+
+    private synchronized int append(int parent, int miner, int height) {
+        int block = size++;
+        int chunk = block >>> CHUNK_BITS;
+        if (chunk == parents.length) {
+            parents = grow(parents);
+            heights = grow(heights);
+            miners = grow(miners);
+        }
+        parents[chunk][block & CHUNK_MASK] = parent;
+        heights[chunk][block & CHUNK_MASK] = height;
+        miners[chunk][block & CHUNK_MASK] = miner;
+        return block;
+    }
+
+    private static int[][] grow(int[][] chunks) {
+        int[][] grown = Arrays.copyOf(chunks, chunks.length + 1);
+        grown[chunks.length] = new int[CHUNK_SIZE];
+        return grown;
+    }
+
+    /**
+     * @param block The index of a block
+     * @return The index of the block's parent, GENESIS for the genesis block
+     */
+    public int getParent(int block) {
+        return parents[block >>> CHUNK_BITS][block & CHUNK_MASK];
+    }
+
+    /**
+     * @param block The index of a block
+     * @return The number of blocks on the path from the genesis block to the given block
+     */
+    public int getHeight(int block) {
+        return heights[block >>> CHUNK_BITS][block & CHUNK_MASK];
+    }
+
+    /**
+     * @param block The index of a block
+     * @return The index of the Node which mined the block, NO_MINER for the genesis block
+     */
+    public int getMiner(int block) {
+        return miners[block >>> CHUNK_BITS][block & CHUNK_MASK];
+    }
+
+    /**
+     * @return The number of blocks in this tree, including the genesis block
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @param a The tip of a Blockchain
+     * @param b The tip of another Blockchain
+     * @return The last block contained in both Blockchains
+     */
+    public int commonAncestor(int a, int b) {
+        while (getHeight(a) > getHeight(b)) {
+            a = getParent(a);
+        }
+        while (getHeight(b) > getHeight(a)) {
+            b = getParent(b);
+        }
+        while (a != b) {
+            a = getParent(a);
+            b = getParent(b);
+        }
+        return a;
+    }
+
+    /**
+     * @param tip The tip of the main Blockchain
+     * @return The number of mined blocks which are not part of the main Blockchain
+     */
+    public int getStaleBlocks(int tip) {
+        return size() - 1 - getHeight(tip);
+    }
+
+    /**
+     * A fork is a branch of blocks whose first block is mined on top of a block
+     * of the main Blockchain but is not part of it.
+     * @param tip The tip of the main Blockchain
+     * @return The length of the longest branch of each fork off the main Blockchain
+     */
+    public int[] getForks(int tip) {
+        int n = size();
+        boolean[] main = new boolean[n];
+        for (int b = tip; b != GENESIS; b = getParent(b)) {
+            main[b] = true;
+        }
+        main[GENESIS] = true;
+
+        //Parents are always added before their children, so one pass in index order suffices
+        int[] root = new int[n];
+        int[] depth = new int[n];
+        int forks = 0;
+        for (int b = 1; b < n; b++) {
+            if (main[b])
+                continue;
+            int parent = getParent(b);
+            if (main[parent]) {
+                root[b] = b;
+                forks++;
+            } else {
+                root[b] = root[parent];
+            }
+            depth[root[b]] = Math.max(depth[root[b]], getHeight(b) - getHeight(root[b]) + 1);
+        }
+        int[] result = new int[forks];
+        int i = 0;
+        for (int b = 1; b < n; b++) {
+            if (!main[b] && root[b] == b)
+                result[i++] = depth[b];
+        }
+        return result;
+    }
+}
@@ -1,8 +1,20 @@
 package Blockchain;
 
+/**
+ * A Blockchain is a path in the BlockTree of the current run, represented by its last block.
+ * It is shared between Nodes once it has been transmitted, so it must 
+ * not be modified afterwards. Nodes add blocks to copies instead.
+ */
 public abstract class Blockchain implements Comparable<Blockchain>{
     
     protected final double difficulty;
+    
+    //The tree containing all blocks of the current run
+    protected BlockTree tree;
+    
+    //The last block of this Blockchain
+    protected int tip;
+    
     /**
      * Creates a new Blockchain with the given mining difficulty
      * @param difficulty The difficulty to add a Block to this Blockchain
@@ -11,6 +23,17 @@ public abstract class Blockchain implements Comparable<Blockchain>{
         if(difficulty <= 0 || difficulty >= 1)
             throw new IllegalArgumentException("Difficulty not in (0, 1)");
         this.difficulty = difficulty;
+        this.tip = BlockTree.GENESIS;
+    }
+    
+    /**
+     * Creates a copy of the given Blockchain sharing all of its blocks.
+     * @param other The Blockchain to be copied
+     */
+    protected Blockchain(Blockchain other) {
+        this.difficulty = other.difficulty;
+        this.tree = other.tree;
+        this.tip = other.tip;
     }
     
     /**
@@ -20,19 +43,42 @@ public abstract class Blockchain implements Comparable<Blockchain>{
     
     /**
      * Adds another block to this Blockchain.
+     * @param miner The Node which mined the block
      */
-    public abstract void addBlock();
+    public void addBlock(Node miner) {
+        tip = tree.append(tip, miner.getIndex());
+    }
     
     /**
-     * Resets this Blockchain to its initial state.
+     * Resets this Blockchain to its initial state, containing only the genesis block
+     * of the owner's Network.
      * @param owner This Blockchain's owner
      */
-    public abstract void reset(Node owner);
+    public void reset(Node owner) {
+        tree = owner.getNetwork().getBlockTree();
+        tip = BlockTree.GENESIS;
+    }
+    
+    /**
+     * @return The length of this Blockchain, 0 if it has not been reset yet
+     */
+    public int getLength() {
+        return tree == null ? 0 : tree.getHeight(tip);
+    }
     
     /**
-     * @return The length of this Blockchain
+     * @return The last block of this Blockchain
      */
-    public abstract int getLength();
+    public int getTip() {
+        return tip;
+    }
+    
+    /**
+     * @return The tree containing all blocks of this Blockchain
+     */
+    public BlockTree getTree() {
+        return tree;
+    }
     
     /**
      * @return The difficulty of this Blockchain
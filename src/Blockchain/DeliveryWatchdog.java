@@ -0,0 +1,143 @@
+package Blockchain;
+
+import Blockchain.Util.Logger;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Measures how much later than their latency transmissions are delivered to each
+ * recipient in a threaded Network. The wait in the recipient's mailbox until its
+ * next mining round is not part of the skew, as more delivery threads can't shorten
+ * it. Once per interval the mean skew of all deliveries during the
+ * interval is evaluated. While deliveries fall behind, the delivery pool is doubled
+ * every interval up to its maximum size. Once deliveries are
+ * on time again and the pool is mostly idle, it shrinks by one thread per interval.
+ * If the skew exceeds the threshold, results of the run can no longer be trusted:
+ * the Network is flagged or aborted.
+ */
+class DeliveryWatchdog {
+    //Interval between two evaluations in milliseconds
+    static final long INTERVAL = 100;
+
+    //Mean skew in milliseconds above which the pool grows, a quarter of it lets the pool shrink
+    static final double TARGET_SKEW = 1;
+
+    private final Network network;
+    //The pool executing deliveries, null if it can't be resized
+    private final ThreadPoolExecutor pool;
+    private final int minThreads, maxThreads;
+    //Skew in milliseconds which flags or aborts the run, 0 to disable
+    private final double threshold;
+    private final boolean abort;
+
+    //Skew and number of deliveries during the current interval
+    private final DoubleAdder skew;
+    private final LongAdder deliveries;
+
+    //Largest mean skew of any interval
+    private volatile double maxSkew;
+    private volatile boolean exceeded;
+
+    private ScheduledExecutorService timer;
+
+    /**
+     * @param network The Network whose clock the latencies refer to
+     * @param pool The pool executing deliveries, null if it can't be resized
+     * @param minThreads The minimum size of the pool
+     * @param maxThreads The maximum size of the pool
+     * @param threshold The mean skew in milliseconds which flags or aborts the run, 0 to disable
+     * @param abort Wether the Network is aborted instead of flagged once the threshold is exceeded
+     */
+    DeliveryWatchdog(Network network, ThreadPoolExecutor pool, int minThreads, int maxThreads,
+            double threshold, boolean abort) {
+        this.network = network;
+        this.pool = pool;
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.threshold = threshold;
+        this.abort = abort;
+        this.skew = new DoubleAdder();
+        this.deliveries = new LongAdder();
+    }
+
+    /**
+     * Records the skew of a delivery arriving at one recipient.
+     * @param due The time the Blockchain should have arrived according to the latency
+     */
+    void record(double due) {
+        skew.add(Math.max(0, network.now() - due));
+        deliveries.increment();
+    }
+
+    void start() {
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "DeliveryWatchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleAtFixedRate(this::evaluate, INTERVAL, INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        if(timer != null)
+            timer.shutdownNow();
+    }
+
+    private void evaluate() {
+        long n = deliveries.sumThenReset();
+        double total = skew.sumThenReset();
+        if(n == 0)
+            return;
+        double mean = total / n;
+        maxSkew = Math.max(maxSkew, mean);
+
+        if(threshold > 0 && mean > threshold && !exceeded) {
+            exceeded = true;
+            if(abort) {
+                Logger.log(Level.WARNING, "Deliveries are %.1f ms late, aborting run", mean);
+                network.abort();
+            } else {
+                Logger.log(Level.WARNING, "Deliveries are %.1f ms late, results of this run are skewed", mean);
+            }
+        }
+
+        if(pool == null)
+            return;
+        int size = pool.getCorePoolSize();
+        if(mean > TARGET_SKEW && size < maxThreads) {
+            resize(Math.min(maxThreads, 2 * size));
+        } else if(mean < TARGET_SKEW / 4 && pool.getActiveCount() < size / 2 && size > minThreads) {
+            resize(size - 1);
+        }
+    }
+
+    private void resize(int size) {
+        if(size > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(size);
+            pool.setCorePoolSize(size);
+        } else {
+            pool.setCorePoolSize(size);
+            pool.setMaximumPoolSize(size);
+        }
+        Logger.log(Level.FINER, "Delivery pool resized to %d threads", size);
+    }
+
+    /**
+     * @return The largest mean skew in milliseconds of any interval
+     */
+    double getMaxSkew() {
+        return maxSkew;
+    }
+
+    /**
+     * @return Wether the mean skew of any interval exceeded the threshold
+     */
+    boolean exceeded() {
+        return exceeded;
+    }
+}
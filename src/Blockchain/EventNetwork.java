@@ -0,0 +1,141 @@
+package Blockchain;
+
+import java.util.PriorityQueue;
+
+/**
+ * Network driven by a discrete-event simulation on a virtual clock.
+ * Mining rounds and transmissions of Blockchains are timestamped events which are
+ * processed in chronological order by the calling thread. A run therefore takes
+ * as long as it takes to process its events instead of the simulated time.
+ * With geometric mining only the rounds in which a Node finds a block are
+ * scheduled, so the number of events no longer depends on the difficulty.
+ */
+public class EventNetwork extends Network implements Scheduler {
+
+    //Pending events ordered by their time of occurrence
+    private final PriorityQueue<Event> events;
+
+    //Current time of the virtual clock in milliseconds
+    private double now;
+
+    //Number of scheduled events, breaks ties between simultaneous events
+    private long sequence;
+
+    //Virtual duration of one mining round in milliseconds
+    private final double roundTime;
+
+    /**
+     * Creates a new event driven Network.
+     * @param roundTime The virtual duration in milliseconds of one mining round of all Nodes
+     */
+    public EventNetwork(double roundTime) {
+        if(roundTime <= 0)
+            throw new IllegalArgumentException("Non positive round time");
+        this.events = new PriorityQueue<>();
+        this.roundTime = roundTime;
+    }
+
+    /**
+     * Nodes in the Network should be set first.
+     * All Nodes in the Network are reset and start to mine on a new Blockchain.
+     * Events are processed until the Network is stopped.
+     */
+    @Override
+    public void run() {
+        stopped = false;
+        tree = new BlockTree();
+        events.clear();
+        now = 0;
+        sequence = 0;
+
+        Scheduler scheduler = getMetrics() != null ? getMetrics().instrument(this) : this;
+        for(int i = 0; i < nodes.size(); i++) {
+            nodes.get(i).reset(scheduler, i);
+        }
+        if(geometricMining()) {
+            for(Node n : nodes) {
+                scheduleMining(n, 0);
+            }
+        } else {
+            at(0, this::mineRound);
+        }
+
+        while(!stopped && !events.isEmpty()) {
+            Event e = events.poll();
+            now = e.time;
+            e.task.run();
+        }
+        events.clear();
+    }
+
+    /**
+     * All Nodes perform one mining round in lockstep, then the next round is scheduled.
+     */
+    private void mineRound() {
+        for(Node n : nodes) {
+            if(stopped)
+                return;
+            n.mine();
+        }
+        at(now + roundTime, this::mineRound);
+    }
+
+    /**
+     * Schedules the round in which the given Node finds its next block. Rounds are
+     * numbered from 0 like those of mineRound, so a block found in the first trial
+     * is found at time 0 with either kind of mining.
+     * @param n The mining Node
+     * @param rounds The number of mining rounds the Node has performed
+     */
+    private void scheduleMining(Node n, long rounds) {
+        long next = rounds + n.roundsToNextBlock();
+        at((next - 1) * roundTime, () -> {
+            n.mine(next - rounds);
+            scheduleMining(n, next);
+        });
+    }
+
+    @Override
+    public void schedule(Runnable task, long delay) {
+        at(now + delay, task);
+    }
+
+    private void at(double time, Runnable task) {
+        events.add(new Event(time, sequence++, task));
+    }
+
+    /**
+     * All events are processed by a single thread, so Nodes process received
+     * Blockchains as soon as they arrive.
+     */
+    @Override
+    boolean deliversInline() {
+        return true;
+    }
+
+    /**
+     * @return The current time of the virtual clock in milliseconds
+     */
+    @Override
+    public double now() {
+        return now;
+    }
+
+    private static class Event implements Comparable<Event> {
+        private final double time;
+        private final long sequence;
+        private final Runnable task;
+
+        public Event(double time, long sequence, Runnable task) {
+            this.time = time;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int c = Double.compare(time, other.time);
+            return c != 0 ? c : Long.compare(sequence, other.sequence);
+        }
+    }
+}
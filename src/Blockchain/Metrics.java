@@ -0,0 +1,181 @@
+package Blockchain;
+
+import Blockchain.Util.Histogram;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and histograms describing a single run of a Network.
+ * Nodes count their events per Node and in striped network wide totals. Every
+ * transmission of a Blockchain records the number of transmissions in flight when it
+ * is scheduled, every recipient records how late the Blockchain is delivered to it
+ * compared with the latency. A transmission delivers to its recipients one after
+ * another, so the lateness of later recipients includes the deliveries before them.
+ * In threaded Networks the lateness shows wether the delivery executor keeps up with
+ * the simulated latencies, in event driven Networks it is always 0. The wait in the
+ * recipient's mailbox until its next mining round is recorded separately.
+ * Other components can add named counters.
+ */
+public class Metrics {
+    public static final int MINED = 0;
+    public static final int SENT = 1;
+    public static final int RECEIVED = 2;
+    public static final int ACCEPTED = 3;
+    public static final int DECLINED = 4;
+    public static final int IGNORED = 5;
+    //Received Blockchains dropped on delivery, as they were no longer than the recipient's copy
+    public static final int DROPPED = 6;
+
+    private static final String[] EVENTS = {"mined", "sent", "received", "accepted", "declined", "ignored",
+        "dropped"};
+
+    //Number of events of each type per Node
+    private final AtomicLongArray[] perNode;
+    //Number of events of each type in the whole Network
+    private final LongAdder[] totals;
+
+    //Named counters of other components
+    private final Map<String, LongAdder> counters;
+
+    //Transmissions scheduled but not yet delivered
+    private final AtomicLong inFlight;
+    //Transmissions in flight whenever a transmission is scheduled
+    private final Histogram queueDepth;
+    //Microseconds by which Blockchains are delivered to each recipient later than their latency
+    private final Histogram lateness;
+    //Microseconds Blockchains wait in the recipient's mailbox until they are processed
+    private final Histogram mailboxWait;
+
+    /**
+     * @param nodes The number of Nodes in the Network
+     */
+    public Metrics(int nodes) {
+        this.perNode = new AtomicLongArray[EVENTS.length];
+        this.totals = new LongAdder[EVENTS.length];
+        for (int e = 0; e < EVENTS.length; e++) {
+            perNode[e] = new AtomicLongArray(nodes);
+            totals[e] = new LongAdder();
+        }
+        this.counters = new ConcurrentHashMap<>();
+        this.inFlight = new AtomicLong();
+        this.queueDepth = new Histogram();
+        this.lateness = new Histogram();
+        this.mailboxWait = new Histogram();
+    }
+
+    /**
+     * Counts an event of a Node.
+     * @param event The type of the event, e.g. MINED
+     * @param node The index of the Node
+     */
+    public void count(int event, int node) {
+        perNode[event].incrementAndGet(node);
+        totals[event].increment();
+    }
+
+    /**
+     * @param event The type of the event, e.g. MINED
+     * @param node The index of the Node
+     * @return The number of events of the given type of a Node
+     */
+    public long get(int event, int node) {
+        return perNode[event].get(node);
+    }
+
+    /**
+     * @param event The type of the event, e.g. MINED
+     * @return The number of events of the given type in the whole Network
+     */
+    public long getTotal(int event) {
+        return totals[event].sum();
+    }
+
+    /**
+     * @param name The name of the counter
+     * @return The counter of the given name, created on first use
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public Histogram getQueueDepth() {
+        return queueDepth;
+    }
+
+    public Histogram getLateness() {
+        return lateness;
+    }
+
+    public Histogram getMailboxWait() {
+        return mailboxWait;
+    }
+
+    /**
+     * Records how late a Blockchain is delivered to one recipient.
+     * @param lateness The time in milliseconds by which the delivery exceeds the latency
+     */
+    public void recordLateness(double lateness) {
+        this.lateness.record((long) (lateness * 1000));
+    }
+
+    /**
+     * Records how long a Blockchain waited in the mailbox of its recipient.
+     * @param wait The time in milliseconds between delivery and processing
+     */
+    public void recordMailboxWait(double wait) {
+        this.mailboxWait.record((long) (wait * 1000));
+    }
+
+    /**
+     * Wraps a Scheduler so all transmissions record the queue depth.
+     * @param scheduler The Scheduler performing the transmissions
+     * @return The instrumented Scheduler
+     */
+    public Scheduler instrument(Scheduler scheduler) {
+        return (task, delay) -> {
+            queueDepth.record(inFlight.incrementAndGet());
+            scheduler.schedule(() -> {
+                inFlight.decrementAndGet();
+                task.run();
+            }, delay);
+        };
+    }
+
+    /**
+     * @return The totals, named counters and histograms
+     */
+    public String summary() {
+        StringBuilder s = new StringBuilder();
+        for (int e = 0; e < EVENTS.length; e++) {
+            s.append(e == 0 ? "" : ", ").append(EVENTS[e]).append(": ").append(getTotal(e));
+        }
+        for (Map.Entry<String, LongAdder> c : new TreeMap<>(counters).entrySet()) {
+            s.append(", ").append(c.getKey()).append(": ").append(c.getValue().sum());
+        }
+        s.append("\nTransmissions in flight: ").append(queueDepth);
+        s.append("\nDelivery lateness [us]: ").append(lateness);
+        s.append("\nMailbox wait [us]: ").append(mailboxWait);
+        return s.toString();
+    }
+
+    /**
+     * @return One line of counts per Node
+     */
+    public String perNode() {
+        StringBuilder s = new StringBuilder("node");
+        for (String e : EVENTS) {
+            s.append(' ').append(e);
+        }
+        for (int n = 0; n < perNode[0].length(); n++) {
+            s.append('\n').append(n);
+            for (int e = 0; e < EVENTS.length; e++) {
+                s.append(' ').append(perNode[e].get(n));
+            }
+        }
+        return s.toString();
+    }
+}
@@ -1,11 +1,21 @@
 package Blockchain;
 
+import Blockchain.Util.Logger;
+import Blockchain.Util.PhaserRoundBarrier;
+import Blockchain.Util.RoundBarrier;
+import Blockchain.Util.VirtualThreads;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
 
 /**
  * Controls execution of Nodes in the Network and their synchronization.
@@ -13,18 +23,60 @@ import java.util.concurrent.TimeUnit;
 public class Network {
     
     //All nodes in the Network
-    private List<Node> nodes;
+    protected List<Node> nodes;
     
     //Maximum latency between any two peers
     private long maxLatency;
     
     //Network status
-    private volatile boolean stopped;
+    protected volatile boolean stopped;
+    
+    //All blocks mined during the current run
+    protected BlockTree tree;
+    
+    //Wether Nodes sample the number of trials until their next block instead of performing each trial
+    private boolean geometricMining;
+    
+    //Wether mining and transmissions are executed on virtual threads
+    private boolean virtualThreads;
+    
+    //Wether transmissions are scheduled by a TimingWheel instead of a ScheduledExecutorService
+    private boolean timingWheel;
+    
+    //Creates the barrier synchronizing the mining rounds for a given number of Nodes
+    private IntFunction<RoundBarrier> barrierFactory;
+    
+    //Records the events of all Nodes if not null, tagged with the index of this run
+    private Trace trace;
+    private int traceRun;
+    
+    //Counts the events of all Nodes if not null
+    private Metrics metrics;
+    
+    //Bounds of the number of threads delivering transmissions
+    private int minDeliveryThreads;
+    private int maxDeliveryThreads;
+    
+    //Mean delivery skew in milliseconds which flags or aborts a run, 0 to disable
+    private double skewThreshold;
+    private boolean abortOnSkew;
+    
+    //Measures the delivery skew of the current run and resizes the delivery pool
+    private DeliveryWatchdog watchdog;
+    
+    //Wether the current run has been aborted
+    private volatile boolean aborted;
+    
+    //Start of the current run
+    private long startNanos;
     
     public Network(){
         this.stopped = true;
         this.nodes = new ArrayList<>();
         this.maxLatency = 5000;
+        this.barrierFactory = PhaserRoundBarrier::new;
+        this.minDeliveryThreads = this.maxDeliveryThreads = 10;
+        this.tree = new BlockTree();
     }
     
     /**
@@ -34,25 +86,126 @@ public class Network {
      */
     public void run() {
         stopped = false;
-        ScheduledExecutorService executor = Executors.newScheduledThreadPool(10);
-        CyclicBarrier gate = new CyclicBarrier(nodes.size());
+        aborted = false;
+        tree = new BlockTree();
+        startNanos = System.nanoTime();
+        RoundBarrier gate = barrierFactory.apply(nodes.size());
+        ThreadFactory factory = virtualThreads ? VirtualThreads.factory() : Thread::new;
         
-        for(Node n : nodes) {
-            n.reset(gate, executor);
+        //Due transmissions are executed on their own virtual thread or by a pool of platform threads
+        ExecutorService pool = null;
+        ThreadPoolExecutor resizable = null;
+        Executor delivery;
+        if(virtualThreads) {
+            delivery = task -> factory.newThread(task).start();
+        } else if(timingWheel) {
+            resizable = (ThreadPoolExecutor) Executors.newFixedThreadPool(minDeliveryThreads);
+            pool = resizable;
+            delivery = pool;
+        } else {
+            delivery = null;
         }
+        
+        ScheduledExecutorService executor = null;
+        TimingWheel wheel = null;
+        Scheduler scheduler;
+        if(timingWheel) {
+            wheel = new TimingWheel(delivery, TimingWheel.DEFAULT_TICK);
+            scheduler = wheel;
+        } else if(virtualThreads) {
+            //A single timer thread hands each due transmission to its own virtual thread
+            ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+            scheduler = (task, delay) -> timer.schedule(() -> {
+                delivery.execute(task);
+            }, delay, TimeUnit.MILLISECONDS);
+            executor = timer;
+        } else {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(minDeliveryThreads);
+            scheduler = (task, delay) -> timer.schedule(task, delay, TimeUnit.MILLISECONDS);
+            executor = timer;
+            resizable = timer;
+        }
+        watchdog = new DeliveryWatchdog(this, resizable, minDeliveryThreads, maxDeliveryThreads, 
+                skewThreshold, abortOnSkew);
+        if(metrics != null)
+            scheduler = metrics.instrument(scheduler);
+        
+        for (int i = 0; i < nodes.size(); i++) {
+            nodes.get(i).reset(scheduler, i);
+        }
+        watchdog.start();
         for (Node n : nodes) {
-            n.startMining();
+            n.startMining(gate, factory);
         }
         for (Node n : nodes) {
             n.join();
         }
         
+        watchdog.stop();
+        if(aborted && trace != null)
+            trace.record(Trace.ABORT, now(), traceRun, -1, -1, -1, -1);
+        if(resizable != null)
+            Logger.log(Level.FINER, "Delivery pool: %d threads, max skew: %.2f ms", 
+                    resizable.getCorePoolSize(), watchdog.getMaxSkew());
+        if(wheel != null)
+            wheel.stop();
+        shutdown(executor);
+        shutdown(pool);
+    }
+    
+    private void shutdown(ExecutorService executor) {
+        if(executor == null)
+            return;
         executor.shutdownNow();
         try {
             executor.awaitTermination(maxLatency, TimeUnit.MILLISECONDS);
         }catch (InterruptedException e){}
     }
     
+    /**
+     * @param geometricMining Wether Nodes sample the number of trials until their next block 
+     * from a geometric distribution in a single draw instead of performing each trial.
+     */
+    public void setGeometricMining(boolean geometricMining) {
+        this.geometricMining = geometricMining;
+    }
+    
+    public boolean geometricMining() {
+        return geometricMining;
+    }
+    
+    /**
+     * Virtual threads require Java 21 or later, otherwise platform threads are used.
+     * Up to Java 23 a virtual thread waiting for a contended monitor blocks its carrier
+     * thread. Received Blockchains are processed without monitors, the remaining ones
+     * (BlockTree.append, stop) are held only briefly and never while waiting.
+     * @param virtualThreads Wether each Node's mining loop and each transmission of 
+     * a Blockchain is executed on a virtual thread instead of a platform thread.
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        if(virtualThreads && !VirtualThreads.isSupported()) {
+            Logger.err(Level.WARNING, "Virtual threads are not supported by this JVM, using platform threads.");
+            virtualThreads = false;
+        }
+        this.virtualThreads = virtualThreads;
+    }
+    
+    /**
+     * @param barrierFactory Creates the RoundBarrier synchronizing the mining rounds
+     * of the given number of Nodes. Default: PhaserRoundBarrier
+     */
+    public void setRoundBarrier(IntFunction<RoundBarrier> barrierFactory) {
+        this.barrierFactory = barrierFactory;
+    }
+    
+    /**
+     * @param timingWheel Wether transmissions of Blockchains are scheduled by a hierarchical 
+     * TimingWheel with constant time insertion and expiry instead of a ScheduledExecutorService.
+     */
+    public void setTimingWheel(boolean timingWheel) {
+        this.timingWheel = timingWheel;
+    }
+    
     public void setNodes(List<Node> nodes) {
         this.nodes = nodes;
     }
@@ -64,15 +217,148 @@ public class Network {
         this.maxLatency = Math.max(maxLatency, 200);
     }
     
+    /**
+     * @param min The initial and minimum number of threads delivering transmissions in threaded Networks
+     * @param max The maximum number of threads the delivery pool grows to while deliveries fall behind
+     */
+    public void setDeliveryThreads(int min, int max) {
+        if(min <= 0 || max < min)
+            throw new IllegalArgumentException("Non positive or invalid number of delivery threads");
+        this.minDeliveryThreads = min;
+        this.maxDeliveryThreads = max;
+    }
+    
+    /**
+     * @param threshold The mean delivery skew in milliseconds which flags or aborts a run
+     * of a threaded Network, 0 to disable
+     * @param abort Wether the run is aborted instead of flagged
+     */
+    public void setSkewThreshold(double threshold, boolean abort) {
+        if(threshold < 0)
+            throw new IllegalArgumentException("Negative skew threshold");
+        this.skewThreshold = threshold;
+        this.abortOnSkew = abort;
+    }
+    
     /**
      * Stops this Network's execution.
      * Calling thread of run() will return after Network is stopped.
+     * @return True if this call stopped the Network, false if it was already stopped
+     */
+    public synchronized boolean stop() {
+        if(stopped)
+            return false;
+        this.stopped = true;
+        return true;
+    }
+    
+    /**
+     * Stops this Network's execution after performing the given action. The action
+     * can't overlap with abort() and completes before any thread sees the Network
+     * stopped, so run() only returns after it.
+     * @param action Performed if this call stops the Network
+     * @return True if this call stopped the Network, false if it was already stopped
      */
-    public void stop() {
+    public synchronized boolean stop(Runnable action) {
+        if(stopped)
+            return false;
+        action.run();
         this.stopped = true;
+        return true;
+    }
+    
+    /**
+     * Stops this Network's execution because its results can't be trusted.
+     * Has no effect if the Network has already been stopped.
+     */
+    public synchronized void abort() {
+        if(stopped)
+            return;
+        aborted = true;
+        stopped = true;
     }
     
     public boolean stopped() {
         return stopped;
     }
+    
+    /**
+     * @return Wether Nodes process received Blockchains immediately instead of between mining rounds
+     */
+    boolean deliversInline() {
+        return false;
+    }
+    
+    /**
+     * @return Wether the current or last run has been aborted, its results should be discarded
+     */
+    public boolean aborted() {
+        return aborted;
+    }
+    
+    /**
+     * @return Wether deliveries of the current or last run fell further behind than the skew threshold
+     */
+    public boolean skewed() {
+        return watchdog != null && watchdog.exceeded();
+    }
+    
+    /**
+     * @return The tree of all blocks mined during the current or last run
+     */
+    public BlockTree getBlockTree() {
+        return tree;
+    }
+    
+    /**
+     * @return The time since the start of the current run in milliseconds
+     */
+    public double now() {
+        return (System.nanoTime() - startNanos) / 1e6;
+    }
+    
+    /**
+     * @param trace Records the events of all Nodes in this Network, null to disable tracing
+     * @param run The index of the run the recorded events are tagged with
+     */
+    public void setTrace(Trace trace, int run) {
+        this.trace = trace;
+        this.traceRun = run;
+    }
+    
+    /**
+     * @param metrics Counts the events of all Nodes in this Network during the next run, 
+     * sized for its Nodes. Null to disable metrics
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+    
+    /**
+     * @return The Metrics of the current or last run, null if metrics are disabled
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * @return The Trace recording the events of all Nodes, null if tracing is disabled
+     */
+    public Trace getTrace() {
+        return trace;
+    }
+    
+    /**
+     * @return The DeliveryWatchdog of the current or last threaded run, null for other engines
+     */
+    DeliveryWatchdog getWatchdog() {
+        return watchdog;
+    }
+    
+    /**
+     * @return The index of the run recorded events are tagged with
+     */
+    public int getTraceRun() {
+        return traceRun;
+    }
 }
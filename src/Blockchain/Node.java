@@ -1,33 +1,71 @@
 package Blockchain;
 
 import Blockchain.Peers.Peer;
-import Blockchain.Util.CyclicBarrierUtil;
 import Blockchain.Util.Logger;
+import Blockchain.Util.RoundBarrier;
+import Blockchain.Util.Util;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.BrokenBarrierException;
-import java.util.concurrent.CyclicBarrier;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 
 /**
  * Basic implementation of a mining Node.
  */
 public abstract class Node { 
+    //Number of attempts to find a new block per mining round
+    static final int TRIALS_PER_ROUND = 10;
+    
     //Network this Node is in
     private final Network network;
     
     //List of peers this Node is connected to
     private List<Peer> peers;
-     
-    //This node's copy of the Blockchain
-    protected Blockchain blockchain;
+    
+    //Peers grouped by latency, so a Blockchain reaching several Peers at the same time is sent in one transmission
+    private long[] groupLatencies;
+    private Node[][] groups;
+    
+    //This node's copy of the Blockchain, read by delivering threads to drop dominated Blockchains
+    protected volatile Blockchain blockchain;
+    
+    //Schedules transmissions of Blockchains to Peers
+    private Scheduler scheduler;
+    
+    //Remaining trials until the next block is found, if mining is geometric
+    private long trialsLeft;
     
     private Thread miningThread;
     protected final String name;
     
+    //Index of this Node in its Network
+    private int index;
+    
+    //Wether received Blockchains are relayed to this Node's Peers
+    private boolean relay;
+    
+    //Longest ignored Blockchain relayed during the current run
+    private Blockchain relayedIgnored;
+    
+    //Records this Node's events, null if tracing is disabled
+    private Trace trace;
+    
+    //Counts this Node's events, null if metrics are disabled
+    private Metrics metrics;
+    
+    //Measures the skew of deliveries to this Node, null unless the Network is threaded
+    private DeliveryWatchdog watchdog;
+    
+    //Received Blockchains not yet processed, the most recent first
+    private final AtomicReference<Delivery> mailbox;
+    
+    //Wether the mailbox is processed as soon as a Blockchain is received
+    private boolean inline;
+    
     /**
      * Creates a new Node
      * @param network The network this Node is in.
@@ -37,45 +75,100 @@ public abstract class Node {
     public Node(Network network, Blockchain blockchain, String name){
         this.network = network;
         this.peers = new LinkedList<>();
+        this.mailbox = new AtomicReference<>();
         this.blockchain = blockchain;
         this.name = name;
     }
     
     /**
-     * Resets this node's Blockchain and creates a new mining thread so 
-     * the mining procedure can be (re-)started.
-     * @param gate The gate used to synchronize Nodes
-     * @param executor The ScheduledExecutorService used to schedule transmissions of Blockchains to Peers
+     * Resets this node's Blockchain so the mining procedure can be (re-)started.
+     * @param scheduler The Scheduler used to schedule transmissions of Blockchains to Peers
+     * @param index The index of this Node in its Network
      */
-    public final void reset(CyclicBarrier gate, ScheduledExecutorService executor) {
+    public final void reset(Scheduler scheduler, int index) {
+        this.index = index;
+        blockchain = blockchain.copy();
         blockchain.reset(this);
-        miningThread = new Thread(() -> {
-            synchronize(gate);
-            while (!network.stopped()) {
-                for (int i = 0; i < 10; i++) {
-                    if (ThreadLocalRandom.current().nextDouble() <= blockchain.getDifficulty()) {
-                        blockFound(executor);   
-                    }
-                }
-                synchronize(gate);
+        groupPeers();
+        this.scheduler = scheduler;
+        this.trace = network.getTrace();
+        this.metrics = network.getMetrics();
+        this.watchdog = network.getWatchdog();
+        this.inline = network.deliversInline();
+        this.mailbox.set(null);
+        this.relayedIgnored = null;
+        this.miningThread = null;
+        this.trialsLeft = Util.nextGeometric(Util.random(), blockchain.getDifficulty());
+    }
+    
+    /**
+     * Node should be reset first.
+     * Creates and starts this Node's mining thread. Each mining round is 
+     * synchronized with all other Nodes by the given gate. The first Node to
+     * notice that the Network has stopped terminates the gate for all others.
+     * Blockchains received during a round are processed before the next one.
+     * @param gate The gate used to synchronize Nodes, each Node's party is its index
+     * @param factory The ThreadFactory creating the mining thread
+     */
+    public void startMining(RoundBarrier gate, ThreadFactory factory) {
+        miningThread = factory.newThread(() -> {
+            while (gate.await(index) && !network.stopped()) {
+                processMailbox();
+                mine();
             }
-            CyclicBarrierUtil.breakCyclicBarrier(gate);
-        }, name);
+            gate.terminate();
+        });
+        miningThread.setName(name);
+        miningThread.start();
     }
     
-    private void synchronize(CyclicBarrier gate){
-        try {
-            gate.await();
-        } catch (InterruptedException | BrokenBarrierException ex) {}
+    /**
+     * Performs a single mining round of TRIALS_PER_ROUND attempts to find a new block.
+     */
+    final void mine() {
+        mine(1);
     }
-
+    
     /**
-     * Node should be reset first.
-     * Starts this Node's mining thread.
+     * Performs the given number of mining rounds of TRIALS_PER_ROUND attempts each.
+     * With geometric mining the trials are not performed one by one, instead the
+     * sampled number of trials until the next block is counted down.
+     * All blocks found by one call are found at the same time, each extending the one 
+     * before. Only the Blockchain ending in the last of them is transmitted: the others
+     * would reach every Peer at the same time, right before it, and be superseded.
+     * @param rounds The number of mining rounds
      */
-    public void startMining() {
-        if(miningThread != null)
-            miningThread.start();
+    final void mine(long rounds) {
+        Random rnd = Util.random();
+        Blockchain found = null;
+        //Only a found block changes this Node's Blockchain
+        double difficulty = blockchain.getDifficulty();
+        if (!network.geometricMining()) {
+            for (long i = 0; i < rounds * TRIALS_PER_ROUND; i++) {
+                if (rnd.nextDouble() <= difficulty) {
+                    found = blockFound();
+                    difficulty = found.getDifficulty();
+                }
+            }
+        } else {
+            long trials = rounds * TRIALS_PER_ROUND;
+            while (trialsLeft <= trials) {
+                trials -= trialsLeft;
+                found = blockFound();
+                trialsLeft = Util.nextGeometric(rnd, found.getDifficulty());
+            }
+            trialsLeft -= trials;
+        }
+        if (found != null)
+            transmit(found, null);
+    }
+    
+    /**
+     * Only applicable to geometric mining.
+     * @return The number of mining rounds until this Node finds its next block
+     */
+    final long roundsToNextBlock() {
+        return (trialsLeft + TRIALS_PER_ROUND - 1) / TRIALS_PER_ROUND;
     }
     
     /**
@@ -90,51 +183,209 @@ public abstract class Node {
     }
     
     /**
-     * Called once a new block is found. Schedules transmission of the newly
-     * found block to this node's peers.
+     * Called once a new block is found. The caller transmits the returned Blockchain
+     * to this Node's peers.
+     * Blockchains are shared between Nodes once transmitted, so the new block is 
+     * added to a copy which all peers receive as the same immutable snapshot.
+     * Only the thread driving this Node modifies its Blockchain, so no lock is needed.
+     * @return The new Blockchain ending in the found block
      */
-    private synchronized void blockFound(ScheduledExecutorService executor) {
-        blockchain.addBlock();
+    private Blockchain blockFound() {
+        Blockchain snapshot = blockchain.copy();
+        snapshot.addBlock(this);
+        blockchain = snapshot;
         
-        Logger.log(Level.FINER, String.format("%s found Block! Sending chain of length %d to Peers...",
-                name, blockchain.getLength()));
+        if(Logger.isLoggable(Level.FINER))
+            Logger.log(Level.FINER, "%s found Block! Sending chain of length %d to Peers...",
+                    name, blockchain.getLength());
         
-        peers.stream().forEach(peer -> {
-            final Blockchain toSend = blockchain.copy();
-            executor.schedule(() -> {
-                peer.getNode().receiveBlockchain(toSend, this);
-            }, peer.getLatency(), TimeUnit.MILLISECONDS);
-        });
+        if(trace != null)
+            record(Trace.FOUND, blockchain.getTree().getParent(blockchain.getTip()), blockchain);
+        if(metrics != null)
+            metrics.count(Metrics.MINED, index);
         
         onBlockMined();
+        
+        return snapshot;
+    }
+    
+    /**
+     * Schedules transmission of the given Blockchain to this Node's Peers.
+     * @param chain The immutable Blockchain to transmit
+     * @param except A Peer not to transmit the Blockchain to, may be null
+     */
+    private void transmit(Blockchain chain, Node except) {
+        for (int i = 0; i < groups.length; i++) {
+            final Node[] group = groups[i];
+            if (trace != null || metrics != null) {
+                for (Node n : group) {
+                    if (n == except)
+                        continue;
+                    if (trace != null)
+                        record(Trace.SEND, n.getIndex(), chain);
+                    if (metrics != null)
+                        metrics.count(Metrics.SENT, index);
+                }
+            }
+            final double due = network.now() + groupLatencies[i];
+            scheduler.schedule(() -> {
+                for (Node n : group) {
+                    if (n != except)
+                        n.deliver(chain, this, due);
+                }
+            }, groupLatencies[i]);
+        }
+    }
+    
+    /**
+     * Groups this Node's peers by their latency.
+     */
+    private void groupPeers() {
+        Map<Long, List<Node>> byLatency = new TreeMap<>();
+        for (Peer p : peers) {
+            byLatency.computeIfAbsent(p.getLatency(), l -> new LinkedList<>()).add(p.getNode());
+        }
+        groupLatencies = new long[byLatency.size()];
+        groups = new Node[byLatency.size()][];
+        int i = 0;
+        for (Map.Entry<Long, List<Node>> e : byLatency.entrySet()) {
+            groupLatencies[i] = e.getKey();
+            groups[i++] = e.getValue().toArray(new Node[e.getValue().size()]);
+        }
     }
     
     /**
      * Called when this Node recieves a new Block by one of its Peers.
-     * Only Blockchains longer than this Node's copy are accepted.
+     * The Blockchain is put into this Node's mailbox without blocking. In threaded
+     * Networks the mailbox is processed by the mining thread between two mining rounds,
+     * in event driven Networks it is processed immediately.
      * @param newChain The recieved Blockchain
      * @param sender The sending Node
      */
-    public synchronized void receiveBlockchain(Blockchain newChain, Node sender) {
-        if(ignoreBlockchain(newChain, sender))
+    public void receiveBlockchain(Blockchain newChain, Node sender) {
+        deliver(newChain, sender, network.now());
+    }
+    
+    /**
+     * Delivers a Blockchain to this Node. A Blockchain no longer than this Node's copy
+     * at delivery time is dropped instead of being put into the mailbox: this Node's
+     * copy only grows, so the Blockchain would neither be accepted nor relayed.
+     * All other deliveries are processed one by one, as the decision to accept, ignore
+     * or relay a Blockchain may depend on every Blockchain processed before it.
+     * @param newChain The recieved Blockchain
+     * @param sender The sending Node
+     * @param due The time the Blockchain should arrive according to the latency
+     */
+    private void deliver(Blockchain newChain, Node sender, double due) {
+        if(trace != null)
+            record(Trace.DELIVER, sender.getIndex(), newChain);
+        if(metrics != null) {
+            metrics.count(Metrics.RECEIVED, index);
+            metrics.recordLateness(network.now() - due);
+        }
+        if(watchdog != null)
+            watchdog.record(due);
+        if(newChain.compareTo(blockchain) <= 0) {
+            if(trace != null)
+                record(Trace.DROP, sender.getIndex(), newChain);
+            if(metrics != null)
+                metrics.count(Metrics.DROPPED, index);
+            return;
+        }
+        Delivery d = new Delivery(newChain, sender, network.now());
+        Delivery head;
+        do {
+            head = mailbox.get();
+            d.next = head;
+        } while (!mailbox.compareAndSet(head, d));
+        if(inline)
+            processMailbox();
+    }
+    
+    /**
+     * Processes all Blockchains in this Node's mailbox in the order they were delivered,
+     * exactly as if each had been processed on its own. Must only be called by the
+     * thread driving this Node. A Blockchain not ignored is accepted if it is longer
+     * than this Node's copy at that point, otherwise it is declined. If this Node relays,
+     * an accepted Blockchain is transmitted to all Peers but its sender. Since a 
+     * Blockchain is never accepted twice, each Node relays it at most once. If this Node
+     * relays ignored Blockchains, those longer than its copy are relayed as well, unless
+     * an ignored Blockchain at least as long has been relayed before, so a temporary
+     * ignore doesn't stop them from reaching the Nodes behind it.
+     * In threaded Networks a Blockchain waits in the mailbox until the start of the
+     * recipient's next mining round, at most one round. The wait is recorded apart from
+     * the lateness of the delivery, as more delivery threads can't shorten it.
+     */
+    private void processMailbox() {
+        Delivery d = mailbox.getAndSet(null);
+        if(d == null)
+            return;
+        //The mailbox is a stack, reverse it to process deliveries in order
+        Delivery batch = null;
+        while (d != null) {
+            Delivery next = d.next;
+            d.next = batch;
+            batch = d;
+            d = next;
+        }
+        
+        for (d = batch; d != null; d = d.next) {
+            if(metrics != null)
+                metrics.recordMailboxWait(network.now() - d.arrival);
+            process(d.chain, d.sender);
+        }
+    }
+    
+    /**
+     * Processes a single received Blockchain.
+     * @param newChain The recieved Blockchain
+     * @param sender The sending Node
+     */
+    private void process(Blockchain newChain, Node sender) {
+        if(ignoreBlockchain(newChain, sender)) {
+            if(trace != null)
+                record(Trace.IGNORE, sender.getIndex(), newChain);
+            if(metrics != null)
+                metrics.count(Metrics.IGNORED, index);
+            if(relay && relaysIgnored() && newChain.compareTo(blockchain) > 0
+                    && (relayedIgnored == null || newChain.compareTo(relayedIgnored) > 0)) {
+                relayedIgnored = newChain;
+                transmit(newChain, sender);
+            }
             return;
+        }
         
         Blockchain oldChain = blockchain;
-        if(newChain.compareTo(blockchain) > 0){
-            
-            Logger.log(Level.FINEST, String.format("%s: Accepting new Blockchain %s from %s",
-                name, newChain, sender.getName()));
+        if(newChain.compareTo(oldChain) > 0) {
+            if(Logger.isLoggable(Level.FINEST))
+                Logger.log(Level.FINEST, "%s: Accepting new Blockchain %s from %s",
+                    name, newChain, sender.getName());
             
             blockchain = newChain;
+            if(trace != null)
+                record(Trace.ACCEPT, sender.getIndex(), newChain);
+            if(metrics != null)
+                metrics.count(Metrics.ACCEPTED, index);
             
-        }else{
-            Logger.log(Level.FINEST, String.format("%s: Declining new Blockchain %s from %s",
-                name, newChain, sender.getName()));
+            if(relay && newChain != relayedIgnored)
+                transmit(newChain, sender);
+        } else {
+            if(Logger.isLoggable(Level.FINEST))
+                Logger.log(Level.FINEST, "%s: Declining new Blockchain %s from %s",
+                    name, newChain, sender.getName());
+            if(trace != null)
+                record(Trace.DECLINE, sender.getIndex(), newChain);
+            if(metrics != null)
+                metrics.count(Metrics.DECLINED, index);
         }
         
         onChoice(oldChain, blockchain);
     }
     
+    private void record(int type, int peer, Blockchain chain) {
+        trace.record(type, network.now(), network.getTraceRun(), index, peer, chain.getTip(), chain.getLength());
+    }
+    
     public final void addPeer(Peer p) {
         peers.add(p);
     }
@@ -146,10 +397,30 @@ public abstract class Node {
         peers.clear();
     }
     
+    /**
+     * @param relay Wether received Blockchains are relayed to this Node's Peers, so
+     * Blockchains propagate hop by hop instead of being sent to every Node directly.
+     * Ignored Blockchains are only relayed if {@link #relaysIgnored()} returns true.
+     */
+    public final void setRelay(boolean relay) {
+        this.relay = relay;
+    }
+    
     public String getName() {
         return name;
     }
     
+    /**
+     * @return The index of this Node in its Network, as of the last reset
+     */
+    public int getIndex() {
+        return index;
+    }
+    
+    public Network getNetwork() {
+        return network;
+    }
+    
     /**
      * Decides wether a recieved Blockchain should be ignored.
      * @param newChain The recieved Blockchain
@@ -158,6 +429,16 @@ public abstract class Node {
      */
     protected abstract boolean ignoreBlockchain(Blockchain newChain, Node sender);
     
+    /**
+     * Decides wether ignored Blockchains are relayed, if this Node relays at all.
+     * Nodes ignoring Blockchains only temporarily should relay them, so the Nodes
+     * behind them still receive them. Nodes ignoring Blockchains for good don't.
+     * @return If ignored Blockchains are relayed, false by default
+     */
+    protected boolean relaysIgnored() {
+        return false;
+    }
+    
     /**
      * Called after the decision was made, wether mining should continue on 
      * the new Blockchain or the existing one.
@@ -167,7 +448,24 @@ public abstract class Node {
     protected abstract void onChoice(Blockchain oldChain, Blockchain newChain);
 
     /**
-     * Called after a new Block has been mined and transmitted to this Node's Peers
+     * Called after a new Block has been mined, before it is transmitted to this Node's Peers
      */
     protected abstract void onBlockMined();
+    
+    /**
+     * A received Blockchain waiting in the mailbox.
+     */
+    private static final class Delivery {
+        private final Blockchain chain;
+        private final Node sender;
+        //The time the Blockchain arrived in the mailbox
+        private final double arrival;
+        private Delivery next;
+        
+        Delivery(Blockchain chain, Node sender, double arrival) {
+            this.chain = chain;
+            this.sender = sender;
+            this.arrival = arrival;
+        }
+    }
 }
@@ -1,9 +1,7 @@
 package Blockchain.Peers;
 
-import Blockchain.Node;
+import Blockchain.Util.Graph;
 import Blockchain.Util.GraphUtil;
-import java.util.ArrayList;
-import java.util.LinkedList;
 
 public class AdjMatrixPeerStrategy extends GraphPeerStrategy{
     private long[][] m;
@@ -19,12 +17,23 @@ public class AdjMatrixPeerStrategy extends GraphPeerStrategy{
     
     
     @Override
-    public long connectPeers(ArrayList<Node> nodes) {
-        for(Node n : nodes)
-            n.clearPeers();
-        ArrayList<LinkedList<GraphUtil.EdgeTo>> adj 
-                = GraphUtil.fromAdjMatrix(m);
-        return connectPeersInGraph(adj, nodes);
+    protected Graph createGraph(int n) {
+        return GraphUtil.fromAdjMatrix(m);
+    }
+    
+    @Override
+    protected Graph resampleWeights(Graph g) {
+        return g;
+    }
+    
+    @Override
+    protected Object structureKey(int n) {
+        return n;
+    }
+    
+    @Override
+    protected Object weightKey() {
+        return m;
     }
 
     @Override
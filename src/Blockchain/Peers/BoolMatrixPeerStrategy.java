@@ -1,10 +1,8 @@
 package Blockchain.Peers;
 
 import Blockchain.Util.Randomizable;
-import Blockchain.Node;
+import Blockchain.Util.Graph;
 import Blockchain.Util.GraphUtil;
-import java.util.ArrayList;
-import java.util.LinkedList;
 
 public class BoolMatrixPeerStrategy extends GraphPeerStrategy{
     private int[][] m;
@@ -29,12 +27,23 @@ public class BoolMatrixPeerStrategy extends GraphPeerStrategy{
     
     
     @Override
-    public long connectPeers(ArrayList<Node> nodes) {
-        for(Node n : nodes)
-            n.clearPeers();
-        ArrayList<LinkedList<GraphUtil.EdgeTo>> adj 
-                = GraphUtil.fromBoolMatrix(m, mean.next(), symmetric); 
-        return connectPeersInGraph(adj, nodes);
+    protected Graph createGraph(int n) {
+        return GraphUtil.fromBoolMatrix(m, mean.next(), symmetric); 
+    }
+    
+    @Override
+    protected Graph resampleWeights(Graph g) {
+        return GraphUtil.resampleWeights(g, mean.next(), symmetric);
+    }
+    
+    @Override
+    protected Object structureKey(int n) {
+        return n;
+    }
+    
+    @Override
+    protected Object weightKey() {
+        return mean.isRandomized() ? null : mean.getValue();
     }
     
     @Override
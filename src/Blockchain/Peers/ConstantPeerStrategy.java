@@ -25,12 +25,12 @@ public class ConstantPeerStrategy extends PeerStrategy{
     public long connectPeers(ArrayList<Node> nodes) {
         for(Node n : nodes)
             n.clearPeers();
-        Random rnd = new Random();
-        mean.next();
+        Random rnd = Util.random();
+        int mean = this.mean.next();
         long max = 0;
         for(int i = 0; i < nodes.size(); i++) {
             for(int j = i+1; j < nodes.size(); j++) {
-                long latency = (long) Util.nextGaussian(rnd, mean.getValue());
+                long latency = (long) Util.nextGaussian(rnd, mean);
                 max = Math.max(max, latency);
                 nodes.get(i).addPeer(new Peer(nodes.get(j), latency));
                 nodes.get(j).addPeer(new Peer(nodes.get(i), latency));
@@ -0,0 +1,194 @@
+package Blockchain.Peers;
+
+import Blockchain.Util.Graph;
+import Blockchain.Util.LongHashSet;
+import Blockchain.Util.Randomizable;
+import Blockchain.Util.Util;
+import java.util.Arrays;
+import java.util.Random;
+
+public class EuclideanKnnPeerStrategy extends GraphPeerStrategy{
+    private final Randomizable<Integer> side;
+    private final int neighbors;
+    private final int longLinks;
+
+    /**
+     * All Nodes are assigned random coordinates in a 2D square and are connected to
+     * their nearest neighbors, found through a uniform grid. Additionally each Node
+     * can be connected to random Nodes anywhere in the square. The latency of an edge
+     * is sampled from a normal distribution whose mean is the euclidean distance
+     * of its Nodes. Combined with relay propagation, Blockchains spread hop by hop.
+     * Nearest neighbors of clustered Nodes may form several components, which are
+     * joined by edges between Nodes of neighboring cells, so every Node is reachable.
+     * If topologies are cached, the sampled latencies are fixed as long as the side
+     * length is, since they are part of the cached graph.
+     * @param side The width and height of the square.
+     * @param neighbors The number of nearest neighbors each Node connects to.
+     * @param longLinks The number of random long distance links of each Node.
+     */
+    public EuclideanKnnPeerStrategy(Randomizable<Integer> side, int neighbors, int longLinks) {
+        if(side.getValue()<0||side.getBounds()[0]<0)
+            throw new IllegalArgumentException("Negative side length");
+        if(neighbors <= 0 || longLinks < 0)
+            throw new IllegalArgumentException("Non positive number of neighbors or negative number of long links");
+        this.side = side;
+        this.neighbors = neighbors;
+        this.longLinks = longLinks;
+    }
+
+    @Override
+    protected Graph createGraph(int n) {
+        Random rnd = Util.random();
+        int side = this.side.next();
+        int[] x = new int[n], y = new int[n];
+        for(int i = 0; i < n; i++){
+            x[i] = rnd.nextInt(side + 1);
+            y[i] = rnd.nextInt(side + 1);
+        }
+
+        /**
+         * Sort the Nodes into a grid of about two Nodes per cell.
+         */
+        int cells = Math.max(1, (int) Math.sqrt(n / 2.0));
+        int cellSize = side / cells + 1;
+        int[] cellStart = new int[cells * cells + 1];
+        int[] cellOf = new int[n];
+        for(int i = 0; i < n; i++){
+            cellOf[i] = (y[i] / cellSize) * cells + x[i] / cellSize;
+            cellStart[cellOf[i] + 1]++;
+        }
+        for(int c = 0; c < cells * cells; c++){
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] cellNodes = new int[n];
+        int[] next = Arrays.copyOf(cellStart, cells * cells);
+        for(int i = 0; i < n; i++){
+            cellNodes[next[cellOf[i]]++] = i;
+        }
+
+        int k = Math.min(neighbors, n - 1);
+        long edges = (long) n * (k + longLinks);
+        LongHashSet connected = new LongHashSet((int) Math.min(edges, Integer.MAX_VALUE / 4));
+        Graph.Builder g = new Graph.Builder(n, (int) Math.min(2 * edges, Integer.MAX_VALUE / 2));
+        int[] best = new int[k];
+        long[] bestDist = new long[k];
+        int[] component = new int[n];
+        for(int i = 0; i < n; i++){
+            component[i] = i;
+        }
+        for(int u = 0; u < n; u++){
+            int found = 0;
+            int cx = x[u] / cellSize, cy = y[u] / cellSize;
+            for(int r = 0; r < cells; r++){
+                //Nodes in ring r are more than r-1 cells away
+                if(found == k && (k == 0 || bestDist[k - 1] <= square((long) (r - 1) * cellSize)))
+                    break;
+                for(int gy = Math.max(0, cy - r); gy <= Math.min(cells - 1, cy + r); gy++){
+                    boolean fullRow = gy == cy - r || gy == cy + r;
+                    for(int gx = Math.max(0, cx - r); gx <= Math.min(cells - 1, cx + r); gx++){
+                        if(!fullRow && gx != cx - r && gx != cx + r)
+                            continue;
+                        int c = gy * cells + gx;
+                        for(int i = cellStart[c]; i < cellStart[c + 1]; i++){
+                            int v = cellNodes[i];
+                            if(v == u)
+                                continue;
+                            long d = square(x[u] - x[v]) + square(y[u] - y[v]);
+                            if(found == k && d >= bestDist[k - 1])
+                                continue;
+                            //Insert into the sorted list of the nearest Nodes found so far
+                            int j = found < k ? found++ : k - 1;
+                            for(; j > 0 && bestDist[j - 1] > d; j--){
+                                best[j] = best[j - 1];
+                                bestDist[j] = bestDist[j - 1];
+                            }
+                            best[j] = v;
+                            bestDist[j] = d;
+                        }
+                    }
+                }
+            }
+            for(int j = 0; j < found; j++){
+                connect(g, connected, component, rnd, x, y, u, best[j], n);
+            }
+            for(int j = 0; j < longLinks && n > 1; j++){
+                int v = rnd.nextInt(n - 1);
+                connect(g, connected, component, rnd, x, y, u, v < u ? v : v + 1, n);
+            }
+        }
+
+        /**
+         * Join the components by visiting the cells row by row in alternating direction,
+         * connecting each Node to the previously visited one if they aren't connected yet.
+         * Consecutive Nodes lie in the same or in neighboring cells.
+         */
+        int prev = -1;
+        for(int gy = 0; gy < cells; gy++){
+            for(int i = 0; i < cells; i++){
+                int c = gy * cells + (gy % 2 == 0 ? i : cells - 1 - i);
+                for(int j = cellStart[c]; j < cellStart[c + 1]; j++){
+                    int v = cellNodes[j];
+                    if(prev >= 0 && find(component, prev) != find(component, v))
+                        connect(g, connected, component, rnd, x, y, prev, v, n);
+                    prev = v;
+                }
+            }
+        }
+        return g.build();
+    }
+
+    private static void connect(Graph.Builder g, LongHashSet connected, int[] component, Random rnd, 
+            int[] x, int[] y, int u, int v, int n) {
+        long pair = u < v ? (long) u * n + v : (long) v * n + u;
+        if(!connected.add(pair))
+            return;
+        double mean = Math.sqrt(square(x[u] - x[v]) + square(y[u] - y[v]));
+        g.addSymmetricEdge(u, v, (int) Util.nextGaussian(rnd, mean));
+        component[find(component, u)] = find(component, v);
+    }
+
+    /**
+     * @return The representative of the component containing the given Node
+     */
+    private static int find(int[] component, int v) {
+        while(component[v] != v){
+            component[v] = component[component[v]];
+            v = component[v];
+        }
+        return v;
+    }
+
+    private static long square(long a) {
+        return a * a;
+    }
+
+    @Override
+    protected Graph resampleWeights(Graph g) {
+        return g;
+    }
+
+    @Override
+    protected Object structureKey(int n) {
+        return side.isRandomized() ? null : Arrays.asList(n, side.getValue());
+    }
+
+    /**
+     * Latencies only depend on the coordinates, so they are resampled along with the structure.
+     */
+    @Override
+    protected Object weightKey() {
+        return side.getValue();
+    }
+
+    @Override
+    public String toString() {
+        String r = "EUCLIDEAN_KNN, Side length: ";
+        if(side.isRandomized()){
+            Integer[] b = side.getBounds();
+            r += "random["+b[0]+";"+b[1]+"]";
+        }else{
+            r += side.getValue();
+        }
+        return r + ", Neighbors: " + neighbors + ", Long links: " + longLinks;
+    }
+}
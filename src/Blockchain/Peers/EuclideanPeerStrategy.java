@@ -8,7 +8,6 @@ import java.util.Random;
 
 public class EuclideanPeerStrategy extends PeerStrategy{
     private Randomizable<Integer> side;
-    private Random rnd;
 
     /**
      * All Nodes are assigned random coordinates in a 2D square. The latency
@@ -20,22 +19,23 @@ public class EuclideanPeerStrategy extends PeerStrategy{
         if(side.getValue()<0||side.getBounds()[0]<0)
             throw new IllegalArgumentException("Negative side length");
         this.side = side;
-        this.rnd = new Random();
     }
 
     @Override
     public long connectPeers(ArrayList<Node> nodes) {
         for(Node n : nodes)
             n.clearPeers();
-        side.next();
-        ArrayList<Point> points = new ArrayList<>(nodes.size());
+        Random rnd = Util.random();
+        int side = this.side.next();
+        int[] x = new int[nodes.size()], y = new int[nodes.size()];
         for(int i = 0; i < nodes.size(); i++){
-            points.add(rndPoint());
+            x[i] = rnd.nextInt(side + 1);
+            y[i] = rnd.nextInt(side + 1);
         }
         long max = 0;
         for(int i = 0; i < nodes.size(); i++) {
             for(int j = i+1; j < nodes.size(); j++) {
-                long latency = latency(points.get(i), points.get(j));
+                long latency = latency(rnd, x[i] - x[j], y[i] - y[j]);
                 max = Math.max(max, latency);
                 nodes.get(i).addPeer(new Peer(nodes.get(j), latency));
                 nodes.get(j).addPeer(new Peer(nodes.get(i), latency));
@@ -44,30 +44,11 @@ public class EuclideanPeerStrategy extends PeerStrategy{
         return max;
     }
     
-    private long latency(Point a, Point b) {
-        double mean = Math.sqrt(Math.pow(a.x-b.x, 2)+Math.pow(a.y-b.y, 2));
+    private static long latency(Random rnd, int dx, int dy) {
+        double mean = Math.sqrt((double) dx*dx + (double) dy*dy);
         return (long) Util.nextGaussian(rnd, mean);
     }
     
-    private Point rndPoint() {
-        return new Point(
-            rnd.nextInt(side.getValue() + 1),
-            rnd.nextInt(side.getValue() + 1)
-        );
-    }
-
-    private class Point {
-        public final int x,y;
-        public Point(int x, int y) {
-            this.x = x;
-            this.y = y;
-        }
-        @Override
-        public String toString() {
-            return String.format("(%d,%d)", x, y);
-        }
-    }
-    
     @Override
     public String toString() {
         String r = "EUCLIDEAN, Side length: ";
@@ -0,0 +1,61 @@
+package Blockchain.Peers;
+
+import Blockchain.Util.Graph;
+import Blockchain.Util.GraphLoader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+public class FilePeerStrategy extends GraphPeerStrategy{
+    private final String fileName;
+    private final int latency;
+    private Graph graph;
+    
+    /**
+     * Creates a network of peers as defined by a topology file, either a text or a binary
+     * edge list as read by GraphLoader. The file is loaded once, when peers are first connected.
+     * Latencies are fixed by the file, they are never resampled between runs.
+     * @param fileName The path and filename of the topology file
+     * @param latency The latency of edges without a latency in text edge lists
+     */
+    public FilePeerStrategy(String fileName, int latency) {
+        if(latency < 0)
+            throw new IllegalArgumentException("Negative latency");
+        this.fileName = fileName;
+        this.latency = latency;
+    }
+    
+    @Override
+    protected synchronized Graph createGraph(int n) {
+        if(graph == null) {
+            try {
+                graph = GraphLoader.load(fileName, latency);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not load topology " + fileName, e);
+            }
+        }
+        if(graph.size() != n)
+            throw new IllegalArgumentException(String.format(
+                    "Topology %s contains %d nodes, network contains %d", fileName, graph.size(), n));
+        return graph;
+    }
+    
+    @Override
+    protected Graph resampleWeights(Graph g) {
+        return g;
+    }
+    
+    @Override
+    protected Object structureKey(int n) {
+        return n;
+    }
+    
+    @Override
+    protected Object weightKey() {
+        return fileName;
+    }
+    
+    @Override
+    public String toString() {
+        return "FILE, Topology: " + fileName;
+    }
+}
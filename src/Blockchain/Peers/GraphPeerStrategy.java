@@ -1,18 +1,115 @@
 package Blockchain.Peers;
 
 import Blockchain.Node;
+import Blockchain.Util.Graph;
 import Blockchain.Util.GraphUtil;
-import Blockchain.Util.GraphUtil.EdgeTo;
 import java.util.ArrayList;
-import java.util.LinkedList;
 
 public abstract class GraphPeerStrategy extends PeerStrategy{
+    //Edge density above which shortest paths are computed by Floyd-Warshall instead of Dijkstra
+    public static final double FLOYD_WARSHALL_DENSITY = 0.5;
+    
+    //Wether Nodes are only connected to their neighbors and relay Blockchains
+    private boolean relay;
+    
+    //Wether topologies are reused across runs while their parameters are unchanged
+    private boolean cache;
+    
+    //Single entry topology cache, keyed by the parameter values the graph was created with
+    private Object cachedStructure;
+    private Object cachedWeights;
+    private Graph cachedGraph;
+    private long[][] cachedDist;
     
     @Override
-    public abstract long connectPeers(ArrayList<Node> nodes);
+    public long connectPeers(ArrayList<Node> nodes) {
+        for(Node n : nodes)
+            n.clearPeers();
+        if(!cache)
+            return connectPeersInGraph(createGraph(nodes.size()), null, nodes);
+        
+        synchronized(this) {
+            Object structure = structureKey(nodes.size());
+            Object weights = weightKey();
+            if(cachedGraph == null || structure == null || !structure.equals(cachedStructure)) {
+                cachedGraph = createGraph(nodes.size());
+                cachedDist = null;
+            } else if(weights == null || !weights.equals(cachedWeights)) {
+                cachedGraph = resampleWeights(cachedGraph);
+                cachedDist = null;
+            }
+            cachedStructure = structure;
+            cachedWeights = weights;
+            if(!relay && cachedDist == null)
+                cachedDist = distances(cachedGraph);
+            return connectPeersInGraph(cachedGraph, cachedDist, nodes);
+        }
+    }
+    
+    /**
+     * Creates a new graph, sampling all randomized parameters.
+     * @param n The number of nodes
+     * @return The graph
+     */
+    protected abstract Graph createGraph(int n);
+    
+    /**
+     * Creates a graph with the same structure and newly sampled latencies.
+     * @param g A graph created by this strategy
+     * @return The graph with new latencies
+     */
+    protected abstract Graph resampleWeights(Graph g);
+    
+    /**
+     * @param n The number of nodes
+     * @return A key identifying the structure of the graph created for the current 
+     * parameter values, null if the structure is randomized
+     */
+    protected abstract Object structureKey(int n);
+    
+    /**
+     * @return A key identifying the latencies of the graph created for the current 
+     * parameter values, null if the latencies are randomized
+     */
+    protected abstract Object weightKey();
+    
+    /**
+     * @param relay If true, Nodes are only connected to their neighbors in the graph 
+     * and relay received Blockchains hop by hop. Otherwise every pair of Nodes is 
+     * connected with the latency of the shortest path between them.
+     */
+    public void setRelay(boolean relay) {
+        this.relay = relay;
+    }
+    
+    public boolean isRelay() {
+        return relay;
+    }
     
-    protected long connectPeersInGraph(ArrayList<LinkedList<EdgeTo>> adj, ArrayList<Node> nodes) {
-        long[][] dist = GraphUtil.apsp(adj);
+    /**
+     * @param cache If true, the last graph and its distance matrix are reused by 
+     * following runs as long as no parameter is randomized. If only the latencies
+     * are randomized, the structure of the graph is reused with new latencies.
+     * Latencies sampled per edge while creating a graph, without a parameter of
+     * their own, are reused along with the graph.
+     */
+    public synchronized void setCache(boolean cache) {
+        this.cache = cache;
+        this.cachedGraph = null;
+        this.cachedDist = null;
+    }
+    
+    public boolean isCache() {
+        return cache;
+    }
+    
+    private long connectPeersInGraph(Graph g, long[][] dist, ArrayList<Node> nodes) {
+        if(relay)
+            return connectNeighbors(g, nodes);
+        for(Node n : nodes)
+            n.setRelay(false);
+        if(dist == null)
+            dist = distances(g);
         long max = 0;
         for(int i = 0; i < nodes.size(); i++){
             for(int j = i+1; j < nodes.size(); j++){
@@ -24,6 +121,29 @@ public abstract class GraphPeerStrategy extends PeerStrategy{
         }
         return max;
     }
+    
+    /**
+     * @return The lengths of all shortest paths in g, computed by the algorithm suited to its density
+     */
+    private static long[][] distances(Graph g) {
+        long n = g.size();
+        if(n > 1 && n <= GraphUtil.FW_MAX_NODES && g.edges() > FLOYD_WARSHALL_DENSITY * n * (n-1))
+            return GraphUtil.floydWarshall(g);
+        return GraphUtil.apsp(g);
+    }
+    
+    private long connectNeighbors(Graph g, ArrayList<Node> nodes) {
+        long max = 0;
+        for(int i = 0; i < nodes.size(); i++){
+            Node n = nodes.get(i);
+            n.setRelay(true);
+            for(int e = g.begin(i); e < g.end(i); e++){
+                max = Math.max(max, g.weight(e));
+                n.addPeer(new Peer(nodes.get(g.target(e)), g.weight(e)));
+            }
+        }
+        return max;
+    }
 
     @Override
     public abstract String toString();
@@ -1,10 +1,9 @@
 package Blockchain.Peers;
 
 import Blockchain.Util.Randomizable;
-import Blockchain.Node;
+import Blockchain.Util.Graph;
 import Blockchain.Util.GraphUtil;
-import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 
 public class RndGraphPeerStrategy extends GraphPeerStrategy{
     private Randomizable<Double> density;
@@ -22,13 +21,24 @@ public class RndGraphPeerStrategy extends GraphPeerStrategy{
     }
     
     @Override
-    public long connectPeers(ArrayList<Node> nodes) {
-        for(Node n : nodes)
-            n.clearPeers();
-        int nodeNum = nodes.size();
-        int edges = (int) (density.next()*nodeNum*(nodeNum-1))/2;
-        ArrayList<LinkedList<GraphUtil.EdgeTo>> adj = GraphUtil.rndGraph(nodeNum, edges, mean.next());
-        return connectPeersInGraph(adj, nodes);
+    protected Graph createGraph(int nodeNum) {
+        long edges = (long) (density.next()*nodeNum*(nodeNum-1)/2);
+        return GraphUtil.rndGraph(nodeNum, edges, mean.next());
+    }
+    
+    @Override
+    protected Graph resampleWeights(Graph g) {
+        return GraphUtil.resampleWeights(g, mean.next(), true);
+    }
+    
+    @Override
+    protected Object structureKey(int n) {
+        return density.isRandomized() ? null : Arrays.asList(n, density.getValue());
+    }
+    
+    @Override
+    protected Object weightKey() {
+        return mean.isRandomized() ? null : mean.getValue();
     }
     
     @Override
@@ -0,0 +1,14 @@
+package Blockchain;
+
+/**
+ * Schedules delayed transmissions of Blockchains between Nodes.
+ */
+public interface Scheduler {
+
+    /**
+     * Executes the given task once the given delay has elapsed.
+     * @param task The task to be executed
+     * @param delay The delay in milliseconds
+     */
+    public void schedule(Runnable task, long delay);
+}
@@ -0,0 +1,208 @@
+package Blockchain;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hierarchical timing wheel scheduling transmissions of Blockchains in constant time.
+ * Tasks are handed to a single ticker thread through a lock-free queue and placed in
+ * the slot of their deadline. Level 0 has one slot per tick, each higher level has
+ * one slot per rotation of the level below and cascades its slots downwards once
+ * they are reached. Expired tasks are executed by the given Executor.
+ * While no slot is occupied before the next cascade, the ticker thread sleeps until
+ * that slot is reached or a task due earlier is scheduled.
+ */
+public class TimingWheel implements Scheduler {
+    //Number of bits addressing the slots of each level
+    private static final int[] LEVEL_BITS = {8, 6, 6};
+
+    //Default duration of a tick in microseconds
+    public static final long DEFAULT_TICK = 100;
+
+    private final Executor executor;
+    private final long tickNanos;
+    private final long start;
+
+    //Newly scheduled tasks, not yet placed in the wheel
+    private final ConcurrentLinkedQueue<Timeout> inbound;
+
+    //Slots of each level and tasks beyond the last level, only accessed by the ticker thread
+    private final ArrayDeque<Timeout>[][] wheel;
+    private final int[] shifts;
+    private final ArrayDeque<Timeout> overflow;
+
+    //Last processed tick
+    private long tick;
+
+    //Number of tasks placed in the wheel, only accessed by the ticker thread
+    private int pending;
+
+    //Tick the sleeping ticker thread wakes up at, tasks due earlier wake it up
+    private volatile long wakeTick;
+
+    private final Thread ticker;
+    private volatile boolean running;
+
+    /**
+     * @param executor Executes expired tasks
+     * @param tickMicros The duration of a tick in microseconds, deadlines are rounded up to whole ticks
+     */
+    public TimingWheel(Executor executor, long tickMicros) {
+        if(tickMicros <= 0)
+            throw new IllegalArgumentException("Non positive tick duration");
+        this.executor = executor;
+        this.tickNanos = TimeUnit.MICROSECONDS.toNanos(tickMicros);
+        this.inbound = new ConcurrentLinkedQueue<>();
+        this.wheel = levels(LEVEL_BITS.length);
+        this.shifts = new int[LEVEL_BITS.length + 1];
+        for(int l = 0; l < LEVEL_BITS.length; l++) {
+            shifts[l + 1] = shifts[l] + LEVEL_BITS[l];
+            wheel[l] = slots(1 << LEVEL_BITS[l]);
+            for(int s = 0; s < wheel[l].length; s++) {
+                wheel[l][s] = new ArrayDeque<>();
+            }
+        }
+        this.overflow = new ArrayDeque<>();
+        this.tick = 0;
+        this.ticker = new Thread(this::turn, "TimingWheel");
+        this.ticker.setDaemon(true);
+        this.running = true;
+        this.start = System.nanoTime();
+        this.ticker.start();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArrayDeque<Timeout>[][] levels(int n) {
+        return (ArrayDeque<Timeout>[][]) new ArrayDeque<?>[n][];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArrayDeque<Timeout>[] slots(int n) {
+        return (ArrayDeque<Timeout>[]) new ArrayDeque<?>[n];
+    }
+
+    @Override
+    public void schedule(Runnable task, long delay) {
+        long elapsed = System.nanoTime() - start + TimeUnit.MILLISECONDS.toNanos(delay);
+        long deadline = (elapsed + tickNanos - 1) / tickNanos;
+        inbound.add(new Timeout(task, deadline));
+        if(deadline < wakeTick)
+            LockSupport.unpark(ticker);
+    }
+
+    /**
+     * Stops the ticker thread. Pending tasks are discarded.
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(ticker);
+        try {
+            ticker.join();
+        } catch (InterruptedException e) {}
+    }
+
+    private void turn() {
+        while(running) {
+            long wait = start + (tick + 1) * tickNanos - System.nanoTime();
+            if(wait <= 0) {
+                tick++;
+                advance();
+                continue;
+            }
+            if(!inbound.isEmpty()) {
+                //New tasks are placed at the next tick
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            //Publish the wake up tick before checking for new tasks once more, so a task
+            //scheduled concurrently is either seen here or unparks the ticker
+            long next = pending == 0 ? Long.MAX_VALUE : nextOccupied();
+            wakeTick = next;
+            if(inbound.isEmpty() && running) {
+                if(next == Long.MAX_VALUE)
+                    LockSupport.park(this);
+                else
+                    LockSupport.parkNanos(this, start + next * tickNanos - System.nanoTime());
+            }
+            wakeTick = 0;
+        }
+    }
+
+    /**
+     * @return The next tick whose level 0 slot is occupied, or the next cascade of level 1 if
+     * no slot is occupied until then
+     */
+    private long nextOccupied() {
+        long cascade = ((tick >> shifts[1]) + 1) << shifts[1];
+        for(long t = tick + 1; t < cascade; t++) {
+            if(!wheel[0][slot(t, 0)].isEmpty())
+                return t;
+        }
+        return cascade;
+    }
+
+    /**
+     * Cascades all higher level slots reached at this tick, places new tasks
+     * and executes all tasks expiring at this tick.
+     */
+    private void advance() {
+        if((tick & ((1L << shifts[LEVEL_BITS.length]) - 1)) == 0) {
+            cascade(overflow);
+        }
+        for(int l = LEVEL_BITS.length - 1; l > 0; l--) {
+            if((tick & ((1L << shifts[l]) - 1)) == 0) {
+                cascade(wheel[l][slot(tick, l)]);
+            }
+        }
+        Timeout t;
+        while((t = inbound.poll()) != null) {
+            pending++;
+            place(t);
+        }
+        ArrayDeque<Timeout> expired = wheel[0][slot(tick, 0)];
+        while((t = expired.poll()) != null) {
+            pending--;
+            executor.execute(t.task);
+        }
+    }
+
+    private void cascade(ArrayDeque<Timeout> slot) {
+        int n = slot.size();
+        for(int i = 0; i < n; i++) {
+            place(slot.poll());
+        }
+    }
+
+    private void place(Timeout t) {
+        if(t.deadline <= tick) {
+            pending--;
+            executor.execute(t.task);
+            return;
+        }
+        for(int l = 0; l < LEVEL_BITS.length; l++) {
+            if((t.deadline >> shifts[l]) - (tick >> shifts[l]) < (1L << LEVEL_BITS[l])) {
+                wheel[l][slot(t.deadline, l)].add(t);
+                return;
+            }
+        }
+        overflow.add(t);
+    }
+
+    private int slot(long tick, int level) {
+        return (int) ((tick >> shifts[level]) & ((1L << LEVEL_BITS[level]) - 1));
+    }
+
+    private static class Timeout {
+        private final Runnable task;
+        //Tick at which the task expires
+        private final long deadline;
+
+        public Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package Blockchain;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Records events of Nodes as fixed size binary records in a memory mapped file.
+ * Each record is claimed by incrementing an atomic counter and written to its own
+ * position, so recording threads never wait for each other. The file is mapped in
+ * segments as it grows. Records consist of the time in microseconds, the event type,
+ * the run, the Node, the Peer involved, the block at the tip of the Blockchain and
+ * its height. For FOUND events the Peer field holds the parent of the new block.
+ * An ABORT record marks a run whose results must be discarded, its other fields are -1.
+ * A DROP record follows the DELIVER record of a Blockchain dropped on delivery, as it
+ * was no longer than the recipient's copy.
+ */
+public class Trace implements AutoCloseable {
+    public static final int FOUND = 0;
+    public static final int SEND = 1;
+    public static final int DELIVER = 2;
+    public static final int ACCEPT = 3;
+    public static final int DECLINE = 4;
+    public static final int IGNORE = 5;
+    public static final int ABORT = 6;
+    public static final int DROP = 7;
+
+    public static final String[] TYPES = {"FOUND", "SEND", "DELIVER", "ACCEPT", "DECLINE", "IGNORE", "ABORT", "DROP"};
+
+    private static final int MAGIC = 0x42435452;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 32;
+    private static final int SEGMENT_RECORDS = 1 << 21;
+    private static final int MAX_SEGMENTS = 1 << 12;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final AtomicLong next;
+    private final AtomicReferenceArray<MappedByteBuffer> segments;
+
+    /**
+     * Creates a new trace file, replacing any existing file.
+     * @param fileName The path and filename of the trace file
+     * @throws IOException If the file can't be created
+     */
+    public Trace(String fileName) throws IOException {
+        this.file = new RandomAccessFile(fileName, "rw");
+        this.file.setLength(0);
+        this.channel = file.getChannel();
+        this.next = new AtomicLong();
+        this.segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+        writeHeader();
+    }
+
+    /**
+     * Appends a record. Records beyond the maximum file size are dropped.
+     */
+    public void record(int type, double time, int run, int node, int peer, int block, int height) {
+        long index = next.getAndIncrement();
+        MappedByteBuffer segment = segment(index / SEGMENT_RECORDS);
+        if (segment == null)
+            return;
+        int i = (int) (index % SEGMENT_RECORDS) * RECORD_BYTES;
+        segment.putLong(i, (long) (time * 1000));
+        segment.putInt(i + 8, type);
+        segment.putInt(i + 12, run);
+        segment.putInt(i + 16, node);
+        segment.putInt(i + 20, peer);
+        segment.putInt(i + 24, block);
+        segment.putInt(i + 28, height);
+    }
+
+    private MappedByteBuffer segment(long s) {
+        if (s >= MAX_SEGMENTS)
+            return null;
+        MappedByteBuffer segment = segments.get((int) s);
+        if (segment != null)
+            return segment;
+        synchronized (this) {
+            segment = segments.get((int) s);
+            if (segment == null) {
+                try {
+                    segment = channel.map(FileChannel.MapMode.READ_WRITE,
+                            HEADER_BYTES + s * SEGMENT_RECORDS * RECORD_BYTES,
+                            (long) SEGMENT_RECORDS * RECORD_BYTES);
+                } catch (IOException e) {
+                    return null;
+                }
+                segment.order(ByteOrder.LITTLE_ENDIAN);
+                segments.set((int) s, segment);
+            }
+            return segment;
+        }
+    }
+
+    /**
+     * @return The number of records written so far
+     */
+    public long size() {
+        return Math.min(next.get(), (long) MAX_SEGMENTS * SEGMENT_RECORDS);
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(RECORD_BYTES).putLong(size()).flip();
+        channel.write(header, 0);
+    }
+
+    /**
+     * Writes the number of records to the header, forces all records to disk and
+     * removes the unused end of the last segment. Recording must have stopped.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (int s = 0; s < MAX_SEGMENTS && segments.get(s) != null; s++) {
+            segments.get(s).force();
+        }
+        writeHeader();
+        channel.truncate(HEADER_BYTES + size() * RECORD_BYTES);
+        file.close();
+    }
+
+    /**
+     * Reads all records of a trace file in the order they were claimed.
+     * @param fileName The path and filename of the trace file
+     * @param consumer Called with each record, the Record instance is reused
+     * @throws IOException If the file can't be read or isn't a trace
+     */
+    public static void read(String fileName, Consumer<Record> consumer) throws IOException {
+        try (RandomAccessFile f = new RandomAccessFile(fileName, "r");
+                FileChannel c = f.getChannel()) {
+            ByteBuffer header = c.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != RECORD_BYTES)
+                throw new IOException(fileName + ": Not a trace file");
+            long records = Math.min(header.getLong(), (c.size() - HEADER_BYTES) / RECORD_BYTES);
+            Record r = new Record();
+            for (long first = 0; first < records; first += SEGMENT_RECORDS) {
+                int n = (int) Math.min(SEGMENT_RECORDS, records - first);
+                ByteBuffer b = c.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * RECORD_BYTES,
+                        (long) n * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < n; i++) {
+                    r.time = b.getLong();
+                    r.type = b.getInt();
+                    r.run = b.getInt();
+                    r.node = b.getInt();
+                    r.peer = b.getInt();
+                    r.block = b.getInt();
+                    r.height = b.getInt();
+                    consumer.accept(r);
+                }
+            }
+        }
+    }
+
+    public static class Record {
+        //Time in microseconds since the start of the run
+        public long time;
+        public int type;
+        public int run;
+        public int node;
+        public int peer;
+        public int block;
+        public int height;
+
+        @Override
+        public String toString() {
+            return String.format("%d %d %s node:%d peer:%d block:%d height:%d",
+                    run, time, TYPES[type], node, peer, block, height);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package Blockchain;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Aggregates a Trace without rerunning the simulation. Prints the number of events
+ * of each type, the delay between finding a block and other Nodes accepting it and
+ * the number of forks by depth. Runs marked by an ABORT record are skipped.
+ * With --dump all records are printed instead.
+ * Usage: java Blockchain.TraceAnalyzer trace [--dump]
+ */
+public class TraceAnalyzer {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java Blockchain.TraceAnalyzer trace [--dump]");
+            System.exit(1);
+        }
+        if (args.length > 1 && args[1].equals("--dump")) {
+            Trace.read(args[0], r -> System.out.println(r));
+            return;
+        }
+
+        Set<Integer> aborted = new HashSet<>();
+        Trace.read(args[0], r -> {
+            if (r.type == Trace.ABORT)
+                aborted.add(r.run);
+        });
+
+        long[] counts = new long[Trace.TYPES.length];
+        Map<Long, Long> found = new HashMap<>();
+        Map<Integer, Run> runs = new TreeMap<>();
+        long[][] delays = {new long[1024]};
+        int[] delayCount = {0};
+        Trace.read(args[0], r -> {
+            if (aborted.contains(r.run))
+                return;
+            counts[r.type]++;
+            long key = ((long) r.run << 32) | r.block;
+            if (r.type == Trace.FOUND) {
+                found.put(key, r.time);
+                runs.computeIfAbsent(r.run, x -> new Run()).add(r.block, r.peer, r.height);
+            } else if (r.type == Trace.ACCEPT) {
+                Long t = found.get(key);
+                if (t == null)
+                    return;
+                if (delayCount[0] == delays[0].length)
+                    delays[0] = Arrays.copyOf(delays[0], 2 * delayCount[0]);
+                delays[0][delayCount[0]++] = r.time - t;
+            }
+        });
+
+        if (!aborted.isEmpty())
+            System.out.printf("Skipped %d aborted runs\n", aborted.size());
+        System.out.println("Events:");
+        for (int t = 0; t < Trace.TYPES.length; t++) {
+            if (t == Trace.ABORT)
+                continue;
+            System.out.printf("  %-8s %d\n", Trace.TYPES[t], counts[t]);
+        }
+
+        long[] d = Arrays.copyOf(delays[0], delayCount[0]);
+        Arrays.sort(d);
+        if (d.length > 0) {
+            double mean = Arrays.stream(d).average().getAsDouble();
+            System.out.printf("Propagation delay [ms] of %d accepted blocks: mean %.3f, median %.3f, p90 %.3f, p99 %.3f, max %.3f\n",
+                    d.length, mean / 1000, d[d.length / 2] / 1000.0, d[(int) (d.length * 0.9)] / 1000.0,
+                    d[(int) (d.length * 0.99)] / 1000.0, d[d.length - 1] / 1000.0);
+        }
+
+        Map<Integer, Integer> forksByDepth = new TreeMap<>();
+        long stale = 0, blocks = 0;
+        for (Run run : runs.values()) {
+            blocks += run.size;
+            stale += run.forks(forksByDepth);
+        }
+        System.out.printf("Runs: %d, blocks: %d, stale blocks: %d\n", runs.size(), blocks, stale);
+        System.out.println("Forks by depth:");
+        for (Map.Entry<Integer, Integer> e : forksByDepth.entrySet()) {
+            System.out.printf("  %4d %d\n", e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * The blocks found during one run, indexed like its BlockTree.
+     */
+    private static class Run {
+        private int[] parent = new int[64];
+        private int[] height = new int[64];
+        private boolean[] present = new boolean[64];
+        private int size;
+
+        void add(int block, int parentBlock, int h) {
+            if (block >= parent.length) {
+                int length = Math.max(2 * parent.length, block + 1);
+                parent = Arrays.copyOf(parent, length);
+                height = Arrays.copyOf(height, length);
+                present = Arrays.copyOf(present, length);
+            }
+            parent[block] = parentBlock;
+            height[block] = h;
+            present[block] = true;
+            size++;
+        }
+
+        /**
+         * Counts the forks off the longest chain by their depth, like BlockTree.getForks.
+         * @return The number of stale blocks
+         */
+        int forks(Map<Integer, Integer> forksByDepth) {
+            int n = parent.length;
+            int tip = BlockTree.GENESIS;
+            for (int b = 1; b < n; b++) {
+                if (present[b] && height[b] > height[tip])
+                    tip = b;
+            }
+            boolean[] main = new boolean[n];
+            for (int b = tip; b != BlockTree.GENESIS; b = parent[b]) {
+                main[b] = true;
+            }
+            main[BlockTree.GENESIS] = true;
+            int[] root = new int[n];
+            int[] depth = new int[n];
+            int stale = 0;
+            for (int b = 1; b < n; b++) {
+                if (!present[b] || main[b])
+                    continue;
+                stale++;
+                root[b] = main[parent[b]] ? b : root[parent[b]];
+                depth[root[b]] = Math.max(depth[root[b]], height[b] - height[root[b]] + 1);
+            }
+            for (int b = 1; b < n; b++) {
+                if (present[b] && !main[b] && root[b] == b)
+                    forksByDepth.merge(depth[b], 1, Integer::sum);
+            }
+            return stale;
+        }
+    }
+}
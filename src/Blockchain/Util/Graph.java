@@ -0,0 +1,195 @@
+package Blockchain.Util;
+
+import java.util.Arrays;
+
+/**
+ * Immutable directed graph in compressed sparse row representation. The outgoing
+ * edges of node v are the indices [begin(v), end(v)) ordered by target, their targets
+ * and latencies are stored in flat primitive arrays. Symmetric graphs contain each 
+ * edge in both directions.
+ */
+public class Graph {
+    //Index of the first outgoing edge of each node, offsets[n] is the number of edges
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+
+    private Graph(int[] offsets, int[] targets, int[] weights) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * @return The number of nodes in this graph.
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @return The number of directed edges in this graph.
+     */
+    public int edges() {
+        return offsets[offsets.length - 1];
+    }
+
+    /**
+     * @param v A node
+     * @return The index of v's first outgoing edge.
+     */
+    public int begin(int v) {
+        return offsets[v];
+    }
+
+    /**
+     * @param v A node
+     * @return The index after v's last outgoing edge.
+     */
+    public int end(int v) {
+        return offsets[v + 1];
+    }
+
+    /**
+     * @param v A node
+     * @return The number of outgoing edges of v.
+     */
+    public int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /**
+     * @param e The index of an edge
+     * @return The node the edge points to.
+     */
+    public int target(int e) {
+        return targets[e];
+    }
+
+    /**
+     * @param e The index of an edge
+     * @return The latency of the edge.
+     */
+    public int weight(int e) {
+        return weights[e];
+    }
+
+    /**
+     * @param v The source node
+     * @param w The target node
+     * @return The index of the edge from v to w, -1 if there is none.
+     */
+    public int edge(int v, int w) {
+        int e = Arrays.binarySearch(targets, offsets[v], offsets[v + 1], w);
+        return e < 0 ? -1 : e;
+    }
+
+    /**
+     * Creates a graph with the same structure and new latencies.
+     * @param weights The latency of each edge, indexed like this graph's edges
+     * @return The new graph.
+     */
+    public Graph withWeights(int[] weights) {
+        if(weights.length != targets.length)
+            throw new IllegalArgumentException("Number of weights does not match number of edges");
+        return new Graph(offsets, targets, weights);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Graph(%d nodes, %d edges)", size(), edges());
+    }
+
+    /**
+     * Collects edges in a growing edge list and sorts them by source and target
+     * into a Graph in linear time.
+     */
+    public static class Builder {
+        private final int n;
+        private int[] from;
+        private int[] to;
+        private int[] weight;
+        private int edges;
+
+        /**
+         * @param n The number of nodes of the graph
+         */
+        public Builder(int n) {
+            this(n, 16);
+        }
+
+        /**
+         * @param n The number of nodes of the graph
+         * @param capacity The expected number of directed edges
+         */
+        public Builder(int n, int capacity) {
+            if(n < 0)
+                throw new IllegalArgumentException("Negative number of nodes");
+            this.n = n;
+            capacity = Math.max(capacity, 1);
+            this.from = new int[capacity];
+            this.to = new int[capacity];
+            this.weight = new int[capacity];
+            this.edges = 0;
+        }
+
+        /**
+         * Adds a directed edge.
+         * @return The Builder instance.
+         */
+        public Builder addEdge(int v, int w, int latency) {
+            if(v < 0 || v >= n || w < 0 || w >= n)
+                throw new IllegalArgumentException("Node out of range: " + v + " -> " + w);
+            if(edges == from.length) {
+                int capacity = from.length * 2;
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                weight = Arrays.copyOf(weight, capacity);
+            }
+            from[edges] = v;
+            to[edges] = w;
+            weight[edges] = latency;
+            edges++;
+            return this;
+        }
+
+        /**
+         * Adds an edge in both directions with the same latency.
+         * @return The Builder instance.
+         */
+        public Builder addSymmetricEdge(int v, int w, int latency) {
+            addEdge(v, w, latency);
+            return addEdge(w, v, latency);
+        }
+
+        public Graph build() {
+            //Two stable counting sorts, by target and then by source
+            int[] byTarget = new int[edges];
+            int[] next = offsets(to);
+            for(int e = 0; e < edges; e++) {
+                byTarget[next[to[e]]++] = e;
+            }
+            int[] offsets = offsets(from);
+            next = Arrays.copyOf(offsets, n);
+            int[] targets = new int[edges];
+            int[] weights = new int[edges];
+            for(int e : byTarget) {
+                int i = next[from[e]]++;
+                targets[i] = to[e];
+                weights[i] = weight[e];
+            }
+            return new Graph(offsets, targets, weights);
+        }
+
+        private int[] offsets(int[] nodes) {
+            int[] offsets = new int[n + 1];
+            for(int e = 0; e < edges; e++) {
+                offsets[nodes[e] + 1]++;
+            }
+            for(int v = 0; v < n; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            return offsets;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package Blockchain.Util;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Loads topologies from files directly into Graphs, without dense matrices.
+ * Two formats are supported:
+ * Text edge lists, one undirected edge "from to [latency]" per line. Nodes are
+ * numbered from 0, lines starting with '#' are ignored. An edge listed more than once,
+ * in either direction, is only added the first time, edges from a node to itself are
+ * rejected.
+ * Binary edge lists, starting with the int MAGIC, int flags, int number of nodes
+ * and long number of edges, followed by one record of int from, int to and
+ * int latency per edge, all little-endian. If the flag SYMMETRIC is set, each
+ * record is an undirected edge. Binary files are read through memory mapping.
+ */
+public class GraphLoader {
+    public static final int MAGIC = 0x42434731;
+    public static final int SYMMETRIC = 1;
+
+    private static final int HEADER_BYTES = 20;
+    private static final int RECORD_BYTES = 12;
+
+    //Number of records mapped at once, mappings are limited to 2GB
+    private static final int RECORDS_PER_MAPPING = 1 << 24;
+
+    /**
+     * Loads a topology in either format, binary files are recognized by their first bytes.
+     * @param fileName The path and filename of the topology file.
+     * @param latency The latency of edges without a latency in text edge lists.
+     * @return The loaded graph.
+     * @throws IOException If the file can't be read.
+     */
+    public static Graph load(String fileName, int latency) throws IOException {
+        int magic;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(fileName))) {
+            magic = Integer.reverseBytes(in.readInt());
+        } catch (EOFException e) {
+            magic = 0;
+        }
+        return magic == MAGIC ? loadBinary(fileName) : loadText(fileName, latency);
+    }
+
+    /**
+     * Streams a text edge list. The number of nodes is the largest node index plus one.
+     * @param fileName The path and filename of the edge list.
+     * @param latency The latency of edges without a latency.
+     * @return The loaded graph.
+     * @throws IOException If the file can't be read or contains an invalid line.
+     */
+    public static Graph loadText(String fileName, int latency) throws IOException {
+        int[] from = new int[1024], to = new int[1024], latencies = new int[1024];
+        int edges = 0, n = 0, lineNumber = 0;
+        LongHashSet seen = new LongHashSet(1024);
+        try (BufferedReader r = Files.newBufferedReader(Paths.get(fileName), StandardCharsets.US_ASCII)) {
+            String line;
+            int[] fields = new int[3];
+            while ((line = r.readLine()) != null) {
+                lineNumber++;
+                int count = parseLine(line, fields);
+                if (count == 0)
+                    continue;
+                if (count < 2)
+                    throw new IOException(String.format("%s:%d: Expected 'from to [latency]'", fileName, lineNumber));
+                if (fields[0] == fields[1])
+                    throw new IOException(String.format("%s:%d: Edge from node %d to itself", fileName, lineNumber, fields[0]));
+                //Undirected edges are identified by their ordered pair of nodes
+                if (!seen.add(((long) Math.min(fields[0], fields[1]) << 32) | Math.max(fields[0], fields[1])))
+                    continue;
+                if (edges == from.length) {
+                    from = Arrays.copyOf(from, 2 * edges);
+                    to = Arrays.copyOf(to, 2 * edges);
+                    latencies = Arrays.copyOf(latencies, 2 * edges);
+                }
+                from[edges] = fields[0];
+                to[edges] = fields[1];
+                latencies[edges] = count > 2 ? fields[2] : latency;
+                edges++;
+                n = Math.max(n, Math.max(fields[0], fields[1]) + 1);
+            }
+        }
+        Graph.Builder g = new Graph.Builder(n, 2 * edges);
+        for (int e = 0; e < edges; e++) {
+            g.addSymmetricEdge(from[e], to[e], latencies[e]);
+        }
+        return g.build();
+    }
+
+    /**
+     * Parses up to three non negative integers separated by whitespace or commas.
+     * @return The number of parsed integers, 0 for blank lines and comments
+     */
+    private static int parseLine(String line, int[] fields) throws IOException {
+        int count = 0;
+        int i = 0, len = line.length();
+        while (i < len) {
+            char c = line.charAt(i);
+            if (c == '#')
+                break;
+            if (c == ' ' || c == '\t' || c == ',') {
+                i++;
+                continue;
+            }
+            if (c < '0' || c > '9' || count == fields.length)
+                throw new IOException("Invalid edge: " + line);
+            long value = 0;
+            while (i < len && (c = line.charAt(i)) >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE)
+                    throw new IOException("Value too large: " + line);
+                i++;
+            }
+            fields[count++] = (int) value;
+        }
+        return count;
+    }
+
+    /**
+     * Reads a binary edge list through memory mapping.
+     * @param fileName The path and filename of the edge list.
+     * @return The loaded graph.
+     * @throws IOException If the file can't be read or is malformed.
+     */
+    public static Graph loadBinary(String fileName) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r");
+                FileChannel channel = file.getChannel()) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC)
+                throw new IOException(fileName + ": Not a binary topology");
+            boolean symmetric = (header.getInt() & SYMMETRIC) != 0;
+            int n = header.getInt();
+            long edges = header.getLong();
+            if (n < 0 || edges < 0 || channel.size() < HEADER_BYTES + edges * RECORD_BYTES)
+                throw new IOException(fileName + ": Truncated binary topology");
+            long directed = symmetric ? 2 * edges : edges;
+            if (directed > Integer.MAX_VALUE - 8)
+                throw new IOException(fileName + ": Too many edges: " + edges);
+
+            Graph.Builder g = new Graph.Builder(n, (int) directed);
+            for (long first = 0; first < edges; first += RECORDS_PER_MAPPING) {
+                int records = (int) Math.min(RECORDS_PER_MAPPING, edges - first);
+                MappedByteBuffer b = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_BYTES + first * RECORD_BYTES, (long) records * RECORD_BYTES);
+                b.order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < records; i++) {
+                    int v = b.getInt(), w = b.getInt(), latency = b.getInt();
+                    if (symmetric)
+                        g.addSymmetricEdge(v, w, latency);
+                    else
+                        g.addEdge(v, w, latency);
+                }
+            }
+            return g.build();
+        }
+    }
+
+    /**
+     * Writes all directed edges of a graph as binary edge list.
+     * @param g The graph.
+     * @param fileName The path and filename of the edge list.
+     * @throws IOException If the file can't be written.
+     */
+    public static void writeBinary(Graph g, String fileName) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "rw");
+                FileChannel channel = file.getChannel()) {
+            long size = HEADER_BYTES + (long) g.edges() * RECORD_BYTES;
+            file.setLength(size);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(0).putInt(g.size()).putLong(g.edges()).flip();
+            channel.write(header, 0);
+            long position = HEADER_BYTES;
+            ByteBuffer b = ByteBuffer.allocate(RECORD_BYTES * 4096).order(ByteOrder.LITTLE_ENDIAN);
+            for (int v = 0; v < g.size(); v++) {
+                for (int e = g.begin(v); e < g.end(v); e++) {
+                    if (!b.hasRemaining()) {
+                        position = flush(channel, b, position);
+                    }
+                    b.putInt(v).putInt(g.target(e)).putInt(g.weight(e));
+                }
+            }
+            flush(channel, b, position);
+        }
+    }
+
+    private static long flush(FileChannel channel, ByteBuffer b, long position) throws IOException {
+        b.flip();
+        while (b.hasRemaining()) {
+            position += channel.write(b, position);
+        }
+        b.clear();
+        return position;
+    }
+}
@@ -1,196 +1,340 @@
 package Blockchain.Util;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
 
 public class GraphUtil {
-    public static class EdgeTo {
-        public final int index;
-        public final long weight;
-        public EdgeTo(int index, long weight) {
-            this.index = index;
-            this.weight = weight;
-        }
-        @Override
-        public String toString(){
-            return String.format("(%d: %d)", index, weight);
-        }
-        @Override
-        public boolean equals(Object obj) {
-            if (obj == null || getClass() != obj.getClass()) 
-                return false;
-            return this.index == ((EdgeTo) obj).index;
-        }
-    }
+    //Distance of unreachable nodes in Floyd-Warshall, small enough that sums can't overflow
+    private static final long INFINITY = Long.MAX_VALUE / 4;
+    
+    //Side length of the blocks of the distance matrix processed by Floyd-Warshall
+    private static final int FW_BLOCK = 64;
+    
+    //Largest number of nodes whose distances fit into a flat matrix indexed by int
+    public static final int FW_MAX_NODES = 46340;
     
     /**
-     * Creates a graph defined by an adjacency list as specified by the defined adjacency matrix.
+     * Creates a graph as specified by the defined adjacency matrix.
      * Edge weights are sampled from a gaussian distributian with constant mean.
      * @param b The adjacency matrix.
      * @param mean The mean of the edge weights.
      * @param symmetric Wether the specified adjacency matrix should be treated as symmetric.
-     * @return The generated graph represented by an adjacency list.
+     * @return The generated graph.
      */
-    public static ArrayList<LinkedList<EdgeTo>> fromBoolMatrix(int[][] b, long mean, boolean symmetric) {
-        Random rnd = new Random();
+    public static Graph fromBoolMatrix(int[][] b, long mean, boolean symmetric) {
+        Random rnd = Util.random();
         int n = b.length;
-        long[][] m = new long[n][n];
+        Graph.Builder g = new Graph.Builder(n);
         for(int i = 0; i < n; i++) {
             for(int j = i+1; j < n; j++) {
                 if(b[i][j]>0){
-                    long latency = (long) Util.nextGaussian(rnd, mean);
-                    m[i][j] = latency;
+                    int latency = (int) Util.nextGaussian(rnd, mean);
                     if(symmetric){
-                        m[j][i] = latency;
+                        g.addSymmetricEdge(i, j, latency);
                         continue;
                     }
-                }else{
-                    m[i][j] = -1;
+                    g.addEdge(i, j, latency);
                 }
                 if(b[j][i]>0){
-                    long latency = (long) Util.nextGaussian(rnd, mean);
-                    m[j][i] = latency;
+                    int latency = (int) Util.nextGaussian(rnd, mean);
                     if(symmetric)
-                        m[i][j] = latency;
-                }else{
-                    m[j][i] = -1;
+                        g.addSymmetricEdge(i, j, latency);
+                    else
+                        g.addEdge(j, i, latency);
                 }
             }
         }
-        return fromAdjMatrix(m);
+        return g.build();
     }
     
     /**
-     * Transforms a graph's matrix representation into an adjacency list.
-     * @param m The adjacency matrix.
-     * @return The adjacency list.
+     * Transforms a graph's matrix representation into a Graph.
+     * @param m The adjacency matrix, negative entries denote missing edges.
+     * @return The graph.
      */
-    public static ArrayList<LinkedList<EdgeTo>> fromAdjMatrix(long[][] m) {
+    public static Graph fromAdjMatrix(long[][] m) {
         int n = m.length;
-        ArrayList<LinkedList<EdgeTo>> adj = new ArrayList<>(n);
-        for(int i = 0; i < n; i++) {
-            adj.add(new LinkedList<>());
-        }
+        Graph.Builder g = new Graph.Builder(n);
         for(int i = 0; i < n; i++) {
             for(int j = i+1; j < n; j++) {
                 if(m[i][j] >= 0){
-                    adj.get(i).add(new EdgeTo(j, m[i][j]));
+                    g.addEdge(i, j, (int) m[i][j]);
                 }
                 if(m[j][i] >= 0){
-                    adj.get(j).add(new EdgeTo(i, m[j][i]));
+                    g.addEdge(j, i, (int) m[j][i]);
                 }
             }
         }
-        return adj;
+        return g.build();
+    }
+    
+    /**
+     * Creates a graph from a list of directed edges.
+     * @param n The number of nodes contained in the graph.
+     * @param from The source of each edge.
+     * @param to The target of each edge.
+     * @param latencies The latency of each edge.
+     * @return The graph.
+     */
+    public static Graph fromEdgeList(int n, int[] from, int[] to, int[] latencies) {
+        if(from.length != to.length || from.length != latencies.length)
+            throw new IllegalArgumentException("Edge list arrays differ in length");
+        Graph.Builder g = new Graph.Builder(n, from.length);
+        for(int e = 0; e < from.length; e++) {
+            g.addEdge(from[e], to[e], latencies[e]);
+        }
+        return g.build();
     }
     
     /**
-     * Creates a pseudo-random, connected, symmetric graph with the given number of nodes and edges.
+     * Creates a pseudo-random, connected, symmetric graph with the given number of nodes and edges
+     * in O(n + edges) time and memory. A random spanning tree guarantees connectivity, the remaining
+     * edges are sampled uniformly from all other pairs of nodes. If more than half of all possible 
+     * edges are requested, the missing edges are sampled instead.
      * Edge weights are sampled from a gaussian distributian with constant mean.
      * @param n The number of nodes contained in the graph.
      * @param edges The number of edges contained in the graph.
      * @param mean The mean of the edge weights.
-     * @return The generated graph represented by an adjacency list.
+     * @return The generated graph.
      */
-    public static ArrayList<LinkedList<EdgeTo>> rndGraph(int n, int edges, long mean) {
-        edges = Math.min((n*(n-1))/2, Math.max(edges, n-1));
-        Random rnd = new Random();
-        ArrayList<LinkedList<EdgeTo>> adj = new ArrayList<>(n);
-        boolean[][] con = new boolean[n][n];
+    public static Graph rndGraph(int n, long edges, long mean) {
+        long maxEdges = (long) n*(n-1)/2;
+        edges = Math.min(maxEdges, Math.max(edges, n-1));
+        if(2*edges > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Too many edges: " + edges);
+        Random rnd = Util.random();
+        Graph.Builder g = new Graph.Builder(n, (int) (2*edges));
+        boolean complement = edges > maxEdges/2;
 
         /**
          * Generate the spanning tree.
          */
-        adj.add(new LinkedList<>());
+        LongHashSet tree = new LongHashSet(complement ? n : (int) edges);
         for(int i = 1; i < n; i++){
-            adj.add(new LinkedList<>());
             int index = rnd.nextInt(i);
-            long latency = (long) Util.nextGaussian(rnd, mean);
-            adj.get(index).add(new EdgeTo(i, latency));
-            adj.get(i).add(new EdgeTo(index, latency));
-            con[i][index] = con[index][i] = true;
+            tree.add(pair(index, i, n));
+            if(!complement)
+                g.addSymmetricEdge(index, i, (int) Util.nextGaussian(rnd, mean));
         }
-        edges -= (n-1);
         
-        RndIntSet set = new RndIntSet(n);
-        for (int i = 0; i < n; i++) {
-            if(adj.get(i).size() < n-1)
-                set.add(i);
+        if(!complement){
+            /**
+             * Distribute the remaining edges.
+             */
+            for(long e = n-1; e < edges; ){
+                int x = rnd.nextInt(n);
+                int y = rnd.nextInt(n);
+                if(x != y && tree.add(pair(x, y, n))){
+                    g.addSymmetricEdge(x, y, (int) Util.nextGaussian(rnd, mean));
+                    e++;
+                }
+            }
+            return g.build();
         }
         
         /**
-         * Distribute the remaining edges.
+         * Choose the missing edges, none of them in the spanning tree, and add all others.
          */
-        while(edges-- > 0){
-            int x = set.removeRandom(rnd);
-            int y = getFreeNeighbor(x, rnd, con, set);
-            
-            long latency = (long) Util.nextGaussian(rnd, mean);
-            adj.get(x).add(new EdgeTo(y, latency));
-            adj.get(y).add(new EdgeTo(x, latency));
-            con[x][y] = con[x][y] = true;
-            if(adj.get(x).size() < n-1)
-                set.add(x);
-            if(adj.get(y).size() < n-1)
-                set.add(y);
+        long missing = maxEdges - edges;
+        LongHashSet excluded = new LongHashSet((int) missing);
+        while(excluded.size() < missing){
+            int x = rnd.nextInt(n);
+            int y = rnd.nextInt(n);
+            if(x != y && !tree.contains(pair(x, y, n)))
+                excluded.add(pair(x, y, n));
+        }
+        for(int x = 0; x < n; x++){
+            for(int y = x+1; y < n; y++){
+                if(!excluded.contains(pair(x, y, n)))
+                    g.addSymmetricEdge(x, y, (int) Util.nextGaussian(rnd, mean));
+            }
         }
-        return adj;
+        return g.build();
+    }
+    
+    /**
+     * @return A unique key of the unordered pair of nodes x and y in a graph of n nodes.
+     */
+    private static long pair(int x, int y, int n) {
+        return x < y ? (long) x*n + y : (long) y*n + x;
     }
     
-    private static int getFreeNeighbor(int x, Random rnd, boolean[][] con, RndIntSet set){
-        int y = set.removeRandom(rnd);
-        if(!con[x][y]&&!con[y][x])
-            return y;
-        int yn = getFreeNeighbor(x, rnd, con, set);
-        set.add(y);
-        return yn;
+    /**
+     * Creates a graph with the same structure and new edge weights sampled from a
+     * gaussian distributian with constant mean.
+     * @param g The graph.
+     * @param mean The mean of the edge weights.
+     * @param symmetric Wether both directions of an edge should have the same weight.
+     * @return The graph with new edge weights.
+     */
+    public static Graph resampleWeights(Graph g, long mean, boolean symmetric) {
+        Random rnd = Util.random();
+        int[] weights = new int[g.edges()];
+        for(int v = 0; v < g.size(); v++) {
+            for(int e = g.begin(v); e < g.end(v); e++) {
+                int w = g.target(e);
+                int reverse = symmetric && w < v ? g.edge(w, v) : -1;
+                weights[e] = reverse >= 0 ? weights[reverse] : (int) Util.nextGaussian(rnd, mean);
+            }
+        }
+        return g.withWeights(weights);
     }
     
     /**
      * Implementation of Dijkstra's shortest path algorithm.
-     * @param adj The graph represented by its adjcency list.
+     * @param g The graph.
      * @param start The starting node.
      * @return A distance array containing the starting node's distance to each other node.
      */
-    public static long[] dijkstra(ArrayList<LinkedList<EdgeTo>> adj, int start){
-        int n = adj.size();
+    public static long[] dijkstra(Graph g, int start){
+        int n = g.size();
         long[] d = new long[n];
+        dijkstra(g, start, d, new IndexedHeap(n));
+        return d;
+    }
+    
+    /**
+     * Implementation of Dijkstra's shortest path algorithm using an indexed heap
+     * with true decrease-key. Unreachable nodes have distance -1.
+     * @param g The graph.
+     * @param start The starting node.
+     * @param d The distance array to fill, of the graph's size.
+     * @param pq An empty scratch heap of at least the graph's size, empty again afterwards.
+     */
+    public static void dijkstra(Graph g, int start, long[] d, IndexedHeap pq){
         Arrays.fill(d, -1);
         d[start] = 0;
-        PriorityQueue<EdgeTo> pq = new PriorityQueue<>(n, (EdgeTo o1, EdgeTo o2) 
-                -> (int)(o1.weight - o2.weight));
-        pq.offer(new EdgeTo(start, 0));
+        pq.offer(start, 0);
         while(!pq.isEmpty()){
-            EdgeTo v = pq.poll();
-            for(EdgeTo w : adj.get(v.index)){
-                long newDist = d[v.index] + w.weight;
-                if(d[w.index] == -1 || newDist < d[w.index]){
-                    if(d[w.index] != -1){
-                        pq.removeIf(x -> x.index == w.index);
-                    }
-                    pq.offer(new EdgeTo(w.index, newDist));
-                    d[w.index] = newDist;
+            int v = pq.poll();
+            long dist = d[v];
+            for(int e = g.begin(v), end = g.end(v); e < end; e++){
+                int w = g.target(e);
+                long newDist = dist + g.weight(e);
+                if(d[w] == -1 || newDist < d[w]){
+                    d[w] = newDist;
+                    pq.offer(w, newDist);
                 }
             }
         }
-        return d;
     }
     
     /**
-     * Solving All Pairs Shortest Paths for a graph represented by its adjacency list
-     * by calling dijkstra for each node.
-     * @param adj This graph's adjacency List
+     * Solving All Pairs Shortest Paths for a graph by calling dijkstra for each node. The sources are distributed over the
+     * common ForkJoinPool, each task writes its rows directly into the distance matrix.
+     * @param g The graph.
      * @return A distance matrix containing the lengths of all shortest Paths
      */
-    public static long[][] apsp(ArrayList<LinkedList<EdgeTo>> adj){
-        int n = adj.size();
-        long[][] d = new long[n][];
+    public static long[][] apsp(Graph g){
+        int n = g.size();
+        long[][] d = new long[n][n];
+        int tasks = 4 * ForkJoinPool.getCommonPoolParallelism();
+        ForkJoinPool.commonPool().invoke(new ApspTask(g, d, 0, n, Math.max(1, n / tasks)));
+        return d;
+    }
+    
+    /**
+     * Solving All Pairs Shortest Paths for a graph by a blocked Floyd-Warshall algorithm
+     * on a flat distance matrix. For each block on the diagonal, the diagonal block,
+     * then its row and column and finally all remaining blocks are updated, the blocks
+     * of each phase in parallel. Preferable to Dijkstra for dense graphs.
+     * @param g The graph.
+     * @return A distance matrix containing the lengths of all shortest Paths, -1 if unreachable
+     * @throws IllegalArgumentException If the graph has more nodes than a flat matrix can index
+     */
+    public static long[][] floydWarshall(Graph g){
+        int n = g.size();
+        if(n > FW_MAX_NODES)
+            throw new IllegalArgumentException("Too many nodes for Floyd-Warshall: " + n);
+        long[] d = new long[n * n];
+        Arrays.fill(d, INFINITY);
+        for(int v = 0; v < n; v++){
+            d[v * n + v] = 0;
+            for(int e = g.begin(v); e < g.end(v); e++){
+                int i = v * n + g.target(e);
+                d[i] = Math.min(d[i], g.weight(e));
+            }
+        }
+        int blocks = (n + FW_BLOCK - 1) / FW_BLOCK;
+        for(int k = 0; k < blocks; k++){
+            final int kb = k;
+            fwBlock(d, n, kb, kb, kb);
+            IntStream.range(0, 2 * blocks).parallel().forEach(b -> {
+                if(b % blocks != kb)
+                    if(b < blocks) fwBlock(d, n, kb, b, kb); else fwBlock(d, n, b - blocks, kb, kb);
+            });
+            IntStream.range(0, blocks * blocks).parallel().forEach(b -> {
+                if(b / blocks != kb && b % blocks != kb)
+                    fwBlock(d, n, b / blocks, b % blocks, kb);
+            });
+        }
+        long[][] dist = new long[n][];
         for(int i = 0; i < n; i++){
-            d[i] = dijkstra(adj, i);
+            dist[i] = Arrays.copyOfRange(d, i * n, (i + 1) * n);
+            for(int j = 0; j < n; j++){
+                if(dist[i][j] >= INFINITY)
+                    dist[i][j] = -1;
+            }
+        }
+        return dist;
+    }
+    
+    /**
+     * Relaxes all paths of block (ib, jb) over the intermediate nodes of block kb.
+     * The innermost loop is a plain min-plus over contiguous memory, so it can be vectorized.
+     */
+    private static void fwBlock(long[] d, int n, int ib, int jb, int kb){
+        int iEnd = Math.min(n, (ib + 1) * FW_BLOCK);
+        int jStart = jb * FW_BLOCK, jEnd = Math.min(n, jStart + FW_BLOCK);
+        int kEnd = Math.min(n, (kb + 1) * FW_BLOCK);
+        for(int k = kb * FW_BLOCK; k < kEnd; k++){
+            int rowK = k * n;
+            for(int i = ib * FW_BLOCK; i < iEnd; i++){
+                int rowI = i * n;
+                long dik = d[rowI + k];
+                if(dik >= INFINITY)
+                    continue;
+                for(int j = jStart; j < jEnd; j++){
+                    d[rowI + j] = Math.min(d[rowI + j], dik + d[rowK + j]);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Computes the rows of a range of sources, splitting it in halves until it is
+     * no larger than the threshold. Each leaf reuses a single scratch heap.
+     */
+    private static class ApspTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final Graph g;
+        private final long[][] d;
+        private final int from, to, threshold;
+        
+        public ApspTask(Graph g, long[][] d, int from, int to, int threshold) {
+            this.g = g;
+            this.d = d;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+        
+        @Override
+        protected void compute() {
+            if(to - from <= threshold) {
+                IndexedHeap pq = new IndexedHeap(g.size());
+                for(int i = from; i < to; i++){
+                    dijkstra(g, i, d[i], pq);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ApspTask(g, d, from, mid, threshold), 
+                    new ApspTask(g, d, mid, to, threshold));
         }
-        return d;
     }
 }
@@ -0,0 +1,95 @@
+package Blockchain.Util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non negative longs with log-linear buckets in the style of HdrHistogram.
+ * Values below 2^SUB_BITS are counted exactly, larger values fall into one of
+ * 2^(SUB_BITS-1) linear sub-buckets per power of two, so every recorded value is
+ * known to within about 3%. Values can be recorded concurrently without locking.
+ */
+public class Histogram {
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF_COUNT = SUB_COUNT / 2;
+    private static final int BUCKETS = (64 - SUB_BITS) * HALF_COUNT + SUB_COUNT;
+
+    private final AtomicLongArray counts;
+    private final LongAdder count;
+    private final LongAdder sum;
+    private final LongAccumulator max;
+
+    public Histogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.max = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * @param value The value to be recorded, negative values are recorded as 0
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    private static int index(long value) {
+        if (value < SUB_COUNT)
+            return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS + 1;
+        return shift * HALF_COUNT + (int) (value >>> shift);
+    }
+
+    /**
+     * @return The smallest value falling into the given bucket
+     */
+    private static long lowest(int index) {
+        if (index < SUB_COUNT)
+            return index;
+        int shift = index / HALF_COUNT - 1;
+        return (long) (index % HALF_COUNT + HALF_COUNT) << shift;
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @param percentile The percentile in [0, 100]
+     * @return The smallest value of the bucket containing the given percentile, 0 if empty
+     */
+    public long percentile(double percentile) {
+        long n = count.sum();
+        if (n == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return Math.min(lowest(i), max());
+        }
+        return max();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n: %d, mean: %.1f, p50: %d, p90: %d, p99: %d, p99.9: %d, max: %d",
+                count(), mean(), percentile(50), percentile(90), percentile(99), percentile(99.9), max());
+    }
+}
@@ -0,0 +1,140 @@
+package Blockchain.Util;
+
+/**
+ * Implementation of an indexed d-ary min heap for Integers in a specific range
+ * with long keys. Each Integer is contained at most once, so its key can be
+ * decreased in place in logarithmic time. Backed by primitive arrays only.
+ */
+public class IndexedHeap {
+    public static final int DEFAULT_ARITY = 4;
+
+    private final int arity;
+    //Heap ordered elements
+    private final int[] heap;
+    //Position of each element in the heap, -1 if not contained
+    private final int[] pos;
+    //Key of each element
+    private final long[] key;
+    private int size;
+
+    /**
+     * @param maxSize Elements are in the range [0, maxSize)
+     */
+    public IndexedHeap(int maxSize){
+        this(maxSize, DEFAULT_ARITY);
+    }
+
+    /**
+     * @param maxSize Elements are in the range [0, maxSize)
+     * @param arity The number of children of each element in the heap
+     */
+    public IndexedHeap(int maxSize, int arity){
+        if(maxSize < 0 || arity < 2)
+            throw new IllegalArgumentException("Invalid size or arity");
+        this.arity = arity;
+        this.heap = new int[maxSize];
+        this.pos = new int[maxSize];
+        this.key = new long[maxSize];
+        for(int i = 0; i < maxSize; i++) {
+            pos[i] = -1;
+        }
+        this.size = 0;
+    }
+
+    /**
+     * Inserts the element with the given key or decreases its key if it is
+     * already contained with a larger key.
+     * @param item The element
+     * @param k The new key
+     * @return True if the element was inserted or its key decreased
+     */
+    public boolean offer(int item, long k){
+        int i = pos[item];
+        if(i < 0) {
+            i = size++;
+        } else if(k >= key[item]) {
+            return false;
+        }
+        key[item] = k;
+        siftUp(item, i);
+        return true;
+    }
+
+    /**
+     * Removes the element with the smallest key.
+     * @return The removed element, -1 if the heap is empty
+     */
+    public int poll(){
+        if(size == 0)
+            return -1;
+        int min = heap[0];
+        pos[min] = -1;
+        int last = heap[--size];
+        if(size > 0)
+            siftDown(last, 0);
+        return min;
+    }
+
+    /**
+     * @param item An element
+     * @return The key the element was last offered with
+     */
+    public long getKey(int item){
+        return key[item];
+    }
+
+    public boolean contains(int item){
+        return pos[item] >= 0;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * Removes all elements.
+     */
+    public void clear(){
+        for(int i = 0; i < size; i++) {
+            pos[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int item, int i){
+        long k = key[item];
+        while(i > 0) {
+            int parent = (i - 1) / arity;
+            int p = heap[parent];
+            if(key[p] <= k)
+                break;
+            heap[i] = p;
+            pos[p] = i;
+            i = parent;
+        }
+        heap[i] = item;
+        pos[item] = i;
+    }
+
+    private void siftDown(int item, int i){
+        long k = key[item];
+        while(true) {
+            int first = i * arity + 1;
+            if(first >= size)
+                break;
+            int last = Math.min(first + arity, size);
+            int min = first;
+            for(int c = first + 1; c < last; c++) {
+                if(key[heap[c]] < key[heap[min]])
+                    min = c;
+            }
+            if(key[heap[min]] >= k)
+                break;
+            heap[i] = heap[min];
+            pos[heap[i]] = i;
+            i = min;
+        }
+        heap[i] = item;
+        pos[item] = i;
+    }
+}
@@ -0,0 +1,105 @@
+package Blockchain.Util;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free ring buffer of log messages with many producers and a single
+ * daemon thread writing them to a PrintStream in order. Producers claim a slot by
+ * a compare-and-set on the tail and only wait if the buffer is full. The writer
+ * parks while the buffer is empty and is only woken by the producer ending the wait.
+ */
+class LogBuffer {
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+    private final AtomicLong tail;
+    //Next slot to write, only advanced by the writer thread
+    private volatile long head;
+    
+    private final PrintStream out;
+    private final Thread writer;
+    private volatile boolean running;
+    //Wether the writer found the buffer empty and is parked or about to park
+    private volatile boolean waiting;
+    
+    /**
+     * @param capacity The number of buffered messages, rounded up to a power of two
+     * @param out The stream messages are written to
+     */
+    LogBuffer(int capacity, PrintStream out) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.tail = new AtomicLong();
+        this.head = 0;
+        this.out = out;
+        this.running = true;
+        this.writer = new Thread(this::drain, "LogWriter");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+    
+    void offer(String msg) {
+        while (true) {
+            long t = tail.get();
+            if (t - head > mask) {
+                LockSupport.unpark(writer);
+                Thread.yield();
+            } else if (tail.compareAndSet(t, t + 1)) {
+                slots.set((int) t & mask, msg);
+                if (waiting)
+                    LockSupport.unpark(writer);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Waits until all messages offered so far have been written.
+     */
+    void flush() {
+        long t = tail.get();
+        while (head < t && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            Thread.yield();
+        }
+        out.flush();
+    }
+    
+    /**
+     * Writes all pending messages and stops the writer thread.
+     */
+    void close() {
+        flush();
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {}
+    }
+    
+    private void drain() {
+        long h = head;
+        while (running || h < tail.get()) {
+            int slot = (int) h & mask;
+            String msg = slots.get(slot);
+            if (msg == null) {
+                //Empty, or the slot was claimed but not yet written. Producers check waiting
+                //after writing their slot, so reading the slot again after setting it
+                //ensures that either the message is seen or the writer is woken
+                out.flush();
+                waiting = true;
+                if (running && slots.get(slot) == null)
+                    LockSupport.park(this);
+                waiting = false;
+                continue;
+            }
+            out.println(msg);
+            slots.set(slot, null);
+            head = ++h;
+        }
+        out.flush();
+    }
+}
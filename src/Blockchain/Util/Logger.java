@@ -1,9 +1,13 @@
 package Blockchain.Util;
 
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 public class Logger {
-    private static Level level = Level.INFO;
+    private static volatile Level level = Level.INFO;
+    
+    //Buffer of the asynchronous writer, null if messages are printed synchronously
+    private static volatile LogBuffer buffer;
     
     /**
      * @param level Controls the amount of console output (INFO < FINE < FINER < FINEST)
@@ -12,8 +16,73 @@ public class Logger {
         Logger.level = level;
     }
     
+    /**
+     * Switches between printing messages by the logging thread and handing them to a 
+     * background writer through a lock-free ring buffer. Pending messages are written
+     * when switching back and at shutdown.
+     * @param async Wether messages are written asynchronously
+     */
+    public static synchronized void setAsync(boolean async) {
+        if(async == (buffer != null))
+            return;
+        if(async) {
+            LogBuffer b = new LogBuffer(1 << 16, System.out);
+            Runtime.getRuntime().addShutdownHook(new Thread(b::flush));
+            buffer = b;
+        } else {
+            LogBuffer b = buffer;
+            buffer = null;
+            b.close();
+        }
+    }
+    
+    /**
+     * Waits until all asynchronously logged messages have been written.
+     */
+    public static synchronized void flush() {
+        if(buffer != null)
+            buffer.flush();
+    }
+    
+    /**
+     * @param msgLevel The level of a message
+     * @return Wether messages of the given level are printed
+     */
+    public static boolean isLoggable(Level msgLevel) {
+        return level.intValue() <= msgLevel.intValue();
+    }
+    
     public static void log(Level msgLevel, String msg){
-        if(level.intValue() <= msgLevel.intValue())
+        if(isLoggable(msgLevel))
+            print(msg);
+    }
+    
+    /**
+     * Formats and prints a message only if its level is enabled.
+     * @param msgLevel The level of the message
+     * @param format The format string as used by String.format
+     * @param args The arguments of the format string
+     */
+    public static void log(Level msgLevel, String format, Object... args){
+        if(isLoggable(msgLevel))
+            print(String.format(format, args));
+    }
+    
+    /**
+     * Creates and prints a message only if its level is enabled.
+     * @param msgLevel The level of the message
+     * @param msg Creates the message
+     */
+    public static void log(Level msgLevel, Supplier<String> msg){
+        if(isLoggable(msgLevel))
+            print(msg.get());
+    }
+    
+    private static void print(String msg) {
+        LogBuffer b = buffer;
+        if(b != null)
+            b.offer(msg);
+        else
             System.out.println(msg);
     }
     
@@ -0,0 +1,94 @@
+package Blockchain.Util;
+
+/**
+ * Implementation of a Set for non negative Longs by open addressing with linear
+ * probing in a single primitive array. Elements can't be removed.
+ */
+public class LongHashSet {
+    private static final long EMPTY = -1;
+
+    private long[] table;
+    private int mask;
+    private int size;
+
+    /**
+     * @param expectedSize The expected number of elements
+     */
+    public LongHashSet(int expectedSize){
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        if(capacity <= 0)
+            throw new IllegalArgumentException("Expected size too large: " + expectedSize);
+        this.table = newTable(capacity);
+        this.mask = capacity - 1;
+        this.size = 0;
+    }
+
+    /**
+     * @param item A non negative element
+     * @return True if the element was not contained before
+     */
+    public boolean add(long item){
+        if(item < 0)
+            throw new IllegalArgumentException("Negative element: " + item);
+        int i = slot(item);
+        while(table[i] != EMPTY){
+            if(table[i] == item)
+                return false;
+            i = (i + 1) & mask;
+        }
+        table[i] = item;
+        if(++size * 2 > table.length)
+            grow();
+        return true;
+    }
+
+    public boolean contains(long item){
+        int i = slot(item);
+        while(table[i] != EMPTY){
+            if(table[i] == item)
+                return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    private int slot(long item){
+        //Finalizer of MurmurHash3 to spread consecutive keys
+        long h = item;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private void grow(){
+        long[] old = table;
+        if(old.length << 1 <= 0)
+            throw new IllegalStateException("LongHashSet capacity exceeded");
+        table = newTable(old.length << 1);
+        mask = table.length - 1;
+        for(long item : old){
+            if(item == EMPTY)
+                continue;
+            int i = slot(item);
+            while(table[i] != EMPTY){
+                i = (i + 1) & mask;
+            }
+            table[i] = item;
+        }
+    }
+
+    private static long[] newTable(int capacity){
+        long[] table = new long[capacity];
+        for(int i = 0; i < capacity; i++){
+            table[i] = EMPTY;
+        }
+        return table;
+    }
+}
@@ -0,0 +1,68 @@
+package Blockchain.Util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Phaser;
+
+/**
+ * RoundBarrier implemented by a tree of tiered Phasers. Each leaf synchronizes
+ * at most fanOut parties, so arriving parties only contend with their siblings
+ * instead of all other parties. Terminating the root releases the whole tree.
+ */
+public class PhaserRoundBarrier implements RoundBarrier {
+    public static final int DEFAULT_FAN_OUT = 16;
+
+    private final int fanOut;
+    private final Phaser[] leaves;
+    private final Phaser root;
+
+    /**
+     * @param parties The number of parties to synchronize
+     */
+    public PhaserRoundBarrier(int parties) {
+        this(parties, DEFAULT_FAN_OUT);
+    }
+
+    /**
+     * @param parties The number of parties to synchronize
+     * @param fanOut The maximum number of parties or child Phasers per Phaser
+     */
+    public PhaserRoundBarrier(int parties, int fanOut) {
+        if(parties <= 0 || fanOut < 2)
+            throw new IllegalArgumentException("Invalid number of parties or fan-out");
+        this.fanOut = fanOut;
+        List<Phaser> l = new ArrayList<>();
+        build(null, parties, l);
+        this.leaves = l.toArray(new Phaser[l.size()]);
+        this.root = leaves[0].getRoot();
+    }
+
+    /**
+     * Creates the subtree for the given number of parties. Leaves are created in order
+     * and all but the last leaf of each subtree are full, so party i belongs to leaf i / fanOut.
+     */
+    private void build(Phaser parent, int parties, List<Phaser> leaves) {
+        if(parties <= fanOut) {
+            leaves.add(new Phaser(parent, parties));
+            return;
+        }
+        int capacity = fanOut;
+        while((long) capacity * fanOut < parties) {
+            capacity *= fanOut;
+        }
+        Phaser node = new Phaser(parent);
+        for(int i = 0; i < parties; i += capacity) {
+            build(node, Math.min(capacity, parties - i), leaves);
+        }
+    }
+
+    @Override
+    public boolean await(int party) {
+        return leaves[party / fanOut].arriveAndAwaitAdvance() >= 0;
+    }
+
+    @Override
+    public void terminate() {
+        root.forceTermination();
+    }
+}
@@ -0,0 +1,20 @@
+package Blockchain.Util;
+
+/**
+ * Synchronizes a fixed number of parties in lockstep rounds.
+ */
+public interface RoundBarrier {
+
+    /**
+     * Waits until all parties have arrived at the end of the current round.
+     * @param party The index of the arriving party in [0, parties)
+     * @return False if this barrier has been terminated, true otherwise
+     */
+    public boolean await(int party);
+
+    /**
+     * Terminates this barrier. All currently waiting parties and future calls
+     * to await return false instantly.
+     */
+    public void terminate();
+}
@@ -1,13 +1,83 @@
 package Blockchain.Util;
 
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Util {
+    //Wether random() returns seeded sources instead of ThreadLocalRandom
+    private static volatile boolean seeded;
+    private static volatile long seed;
+    //Incremented with every new seed, so threads restart their sequences
+    private static volatile int generation;
+    //Number of threads which have drawn from the current seed
+    private static final AtomicInteger threads = new AtomicInteger();
+    private static final ThreadLocal<SeededRandom> seededRandom = new ThreadLocal<>();
+    
+    /**
+     * Returns the source of randomness of the calling thread. Unless a seed is set
+     * this is ThreadLocalRandom. Otherwise each thread draws from its own Random,
+     * seeded by the global seed and the order in which threads first call this method.
+     * Simulations are therefore only reproducible if all randomness is drawn by a
+     * single thread, as with the event driven engine and one parallel run.
+     * @return The source of randomness of the calling thread
+     */
+    public static Random random(){
+        if(!seeded)
+            return ThreadLocalRandom.current();
+        SeededRandom rnd = seededRandom.get();
+        if(rnd == null || rnd.generation != generation){
+            rnd = new SeededRandom(seed + 0x9e3779b97f4a7c15L * threads.getAndIncrement(), generation);
+            seededRandom.set(rnd);
+        }
+        return rnd;
+    }
+    
+    /**
+     * Makes all following draws from random() reproducible.
+     * @param seed The seed
+     */
+    public static synchronized void setSeed(long seed){
+        Util.seed = seed;
+        threads.set(0);
+        generation++;
+        seeded = true;
+    }
+    
+    /**
+     * Returns random() to unseeded ThreadLocalRandom sources.
+     */
+    public static synchronized void clearSeed(){
+        seeded = false;
+    }
+    
     public static double nextGaussian(Random rnd, double mean){
         return Math.max(0, rnd.nextGaussian()*0.1*mean+mean);
     }
     
+    /**
+     * Samples the number of independent trials up to and including the first success.
+     * @param rnd The source of randomness
+     * @param p The probability of success of a single trial in (0, 1)
+     * @return The number of trials, at least one
+     */
+    public static long nextGeometric(Random rnd, double p){
+        double trials = Math.ceil(Math.log(1 - rnd.nextDouble()) / Math.log1p(-p));
+        return Math.max(1, (long) trials);
+    }
+    
     public static double log(double base, double val) {
         return Math.log(val) / Math.log(base);
     }
+    
+    private static class SeededRandom extends Random {
+        private static final long serialVersionUID = 1L;
+        
+        private final int generation;
+        
+        SeededRandom(long seed, int generation){
+            super(seed);
+            this.generation = generation;
+        }
+    }
 }
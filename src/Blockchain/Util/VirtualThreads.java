@@ -0,0 +1,35 @@
+package Blockchain.Util;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads, which are only available on Java 21 and later.
+ * The factory is looked up reflectively so the simulator still runs on older JVMs.
+ */
+public class VirtualThreads {
+    private static final ThreadFactory FACTORY = lookupFactory();
+
+    private static ThreadFactory lookupFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                    .getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return Wether the running JVM supports virtual threads
+     */
+    public static boolean isSupported() {
+        return FACTORY != null;
+    }
+
+    /**
+     * @return A ThreadFactory creating virtual threads, or null if they are not supported
+     */
+    public static ThreadFactory factory() {
+        return FACTORY;
+    }
+}
@@ -22,12 +22,12 @@ public class ConstantConnectionStrategy extends ConnectionStrategy{
 
     @Override
     public long connectPeers(ArrayList<Node> attackers, ArrayList<Node> trusted) {
-        Random rnd = new Random();
-        mean.next();
+        Random rnd = Util.random();
+        int mean = this.mean.next();
         long max = 0;
         for(Node a : attackers) {
             for(Node t : trusted) {
-                long latency = (long) Util.nextGaussian(rnd, mean.getValue());
+                long latency = (long) Util.nextGaussian(rnd, mean);
                 max = Math.max(max, latency);
                 a.addPeer(new Peer(t, latency));
                 t.addPeer(new Peer(a, latency));
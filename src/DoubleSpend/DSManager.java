@@ -1,41 +1,72 @@
 package DoubleSpend;
 
+import Blockchain.Metrics;
 import Blockchain.Network;
 import Blockchain.Util.Logger;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 
 /**
  * Collects data about total blocks mined and number of stale block.
- * Reports results to Simulation.
+ * Reports results to Simulation and stops the Network of the current attempt.
+ * A DSManager belongs to a single attempt. All Nodes register their blocks without
+ * locking: the lengths of the longest trusted and attacker chains are packed into
+ * a single long which is only ever raised by compare-and-set, so every decision is
+ * based on a consistent pair of lengths. The attempt is reported exactly once,
+ * before the Network stops, so the Simulation has counted it once the run is over.
  */
 public class DSManager {
-    //Length of longest trusted chain
-    private int maxTrustedChain;
-    //Length of longest attacker chain
-    private int maxAttackerChain;
+    //Length of longest trusted chain in the upper, of longest attacker chain in the lower 32 bits
+    private final AtomicLong chains;
     
     //Number of stale blocks created by the trusted network
-    private int tStaleBlocks;
+    private final LongAdder tStaleBlocks;
     //Number of stale blocks created by the attacker network
-    private int aStaleBlocks;
+    private final LongAdder aStaleBlocks;
     
     //Number of Nodes convinced by the double-spending transaction
-    private AtomicInteger convinced;
+    private final AtomicInteger convinced;
+    
+    //Wether the attempt has been reported
+    private final AtomicBoolean reported;
 
     private Parameters p;
     private DSSimulation sim;
     private Network network;
     
+    //Counters of registered chains and changes of conviction, null if metrics are disabled
+    private final LongAdder trustedChains, attackerChains, convincedCount, unconvincedCount;
+    
     public DSManager(Parameters p, DSSimulation sim, Network network){
         this.p = p;
         this.sim = sim;
         this.network = network;
-        this.maxAttackerChain = 0;
-        this.maxTrustedChain  = 0;
-        this.tStaleBlocks = 0;
-        this.aStaleBlocks = 0;
+        this.chains = new AtomicLong();
+        this.tStaleBlocks = new LongAdder();
+        this.aStaleBlocks = new LongAdder();
         this.convinced = new AtomicInteger();
+        this.reported = new AtomicBoolean();
+        
+        Metrics metrics = network.getMetrics();
+        this.trustedChains = metrics == null ? null : metrics.counter("trusted chains");
+        this.attackerChains = metrics == null ? null : metrics.counter("attacker chains");
+        this.convincedCount = metrics == null ? null : metrics.counter("convinced");
+        this.unconvincedCount = metrics == null ? null : metrics.counter("unconvinced");
+    }
+    
+    private static int trusted(long chains) {
+        return (int) (chains >>> 32);
+    }
+    
+    private static int attacker(long chains) {
+        return (int) chains;
+    }
+    
+    private static long pack(int trusted, int attacker) {
+        return ((long) trusted << 32) | (attacker & 0xffffffffL);
     }
     
     /**
@@ -44,18 +75,18 @@ public class DSManager {
      * The double spend attempt is considered succesful if all trusted Nodes have been convinced.
      */
     public void addConvinced(){
-        if(convinced.incrementAndGet() == p.getTrustedNodes()){
-            synchronized (this) {
-                sim.report(true, maxAttackerChain, maxTrustedChain, aStaleBlocks, tStaleBlocks);
-                reset();
-            }
-        }
+        if(convincedCount != null)
+            convincedCount.increment();
+        if(convinced.incrementAndGet() == p.getTrustedNodes())
+            report(true, chains.get());
     }
     
     /**
      * Called once a trusted Node is no longer convinced of the double-spending transaction.
      */
     public void removeConvinced(){
+        if(unconvincedCount != null)
+            unconvincedCount.increment();
         convinced.decrementAndGet();
     }
     
@@ -64,16 +95,22 @@ public class DSManager {
      * the longest chain and number of stale blocks in the Network.
      * @param chainLength The length of the new Blockchain
      */
-    public synchronized void registerTrustedChain(int chainLength){
+    public void registerTrustedChain(int chainLength){
+        if(trustedChains != null)
+            trustedChains.increment();
         if(network.stopped())
             return;
-        if(maxTrustedChain >= chainLength){
-            tStaleBlocks++;
-            return;
-        }
-        maxTrustedChain = chainLength;
-        Logger.log(Level.FINER, String.format("Trusted chain: %d",maxTrustedChain));
-        checkFailure();
+        long current, next;
+        do {
+            current = chains.get();
+            if(trusted(current) >= chainLength){
+                tStaleBlocks.increment();
+                return;
+            }
+            next = pack(chainLength, attacker(current));
+        } while (!chains.compareAndSet(current, next));
+        Logger.log(Level.FINER, "Trusted chain: %d", chainLength);
+        checkFailure(next);
     }
     
     /**
@@ -81,33 +118,44 @@ public class DSManager {
      * the longest chain and number of stale blocks in the Network.
      * @param chainLength The length of the new Blockchain
      */
-    public synchronized void registerAttackerChain(int chainLength){
+    public void registerAttackerChain(int chainLength){
+        if(attackerChains != null)
+            attackerChains.increment();
         if(network.stopped())
             return;
-        if(maxAttackerChain >= chainLength){
-            aStaleBlocks++;
-            return;
-        }
-        maxAttackerChain = chainLength;
-        Logger.log(Level.FINER, String.format("Attacker chain: %d",maxAttackerChain));
+        long current;
+        do {
+            current = chains.get();
+            if(attacker(current) >= chainLength){
+                aStaleBlocks.increment();
+                return;
+            }
+        } while (!chains.compareAndSet(current, pack(trusted(current), chainLength)));
+        Logger.log(Level.FINER, "Attacker chain: %d", chainLength);
     }
     
     /**
     * Checks if the current double spend attempt should be aborted. 
     * Reports result to Simulation.
+    * @param chains The lengths of the longest chains after the last trusted block
     */
-    private void checkFailure(){   
+    private void checkFailure(long chains){   
+        int maxTrustedChain = trusted(chains), maxAttackerChain = attacker(chains);
         //current attempt will be aborted if attackers are falling too far behind,
         //or a maximum blockchain length has been reached
         if(p.getMaxLead() < maxTrustedChain - maxAttackerChain || Math.max(maxAttackerChain, maxTrustedChain) > p.getMaxLength()){  
-            sim.report(false, maxAttackerChain, maxTrustedChain, aStaleBlocks, tStaleBlocks);
-            reset();
+            report(false, chains);
         }
     }
     
-    private void reset() {
-        convinced = new AtomicInteger();
-        maxAttackerChain = maxTrustedChain = 0;
-        aStaleBlocks = tStaleBlocks = 0;
+    /**
+     * Reports the attempt to the Simulation and stops the Network. Only the first call
+     * has an effect, later calls and calls after the Network has been aborted are ignored.
+     */
+    private void report(boolean successful, long chains){
+        if(!reported.compareAndSet(false, true))
+            return;
+        network.stop(() -> sim.report(successful, attacker(chains), trusted(chains), 
+                (int) aStaleBlocks.sum(), (int) tStaleBlocks.sum()));
     }
 }
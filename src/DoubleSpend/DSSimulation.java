@@ -1,10 +1,17 @@
 package DoubleSpend;
 
+import Blockchain.Metrics;
 import Blockchain.Network;
 import Blockchain.Node;
+import Blockchain.Trace;
 import Blockchain.Peers.PeerStrategy;
 import Blockchain.Util.Logger;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 /**
@@ -13,24 +20,29 @@ import java.util.logging.Level;
  * mining on private forks of the Blockchain.
  */
 public class DSSimulation {
+    //Number of times an attempt is repeated after its run has been aborted
+    private static final int MAX_RETRIES = 3;
+    
     private Parameters p;
-    private Network network;
     
     //Number of (un-)successful Double Spend attempts
-    private volatile int success;
-    private volatile int failure;
+    private int success;
+    private int failure;
+    
+    //Number of attempts skipped, as their run has been aborted every time
+    private int skipped;
     
     //Overall mined blocks and stale blocks by trusted and attacker network
-    private volatile int aBlocks, tBlocks;
-    private volatile int aStaleBlocks, tStaleBlocks;
+    private int aBlocks, tBlocks;
+    private int aStaleBlocks, tStaleBlocks;
     
     private PeerStrategy trustedPeerStrat;
     private PeerStrategy attackerPeerStrat;
     private ConnectionStrategy attackerStrat;
     
-    private ArrayList<Node> trustedNodes;
-    private ArrayList<Node> attackerNodes;
-    private ArrayList<Node> nodes;
+    //Records the events of all runs if tracing is enabled
+    private Trace trace;
+    private final AtomicInteger runCounter = new AtomicInteger();
     
     public DSSimulation(Parameters p) {
         this(p, p.getTrustedPeerStrategy(), p.getAttackerPeerStrategy(), p.getConnectionStrategy());
@@ -47,31 +59,14 @@ public class DSSimulation {
             PeerStrategy attackerPeerStrat, ConnectionStrategy attackerStrat) {
         Logger.setLevel(p.getLogLevel());
         this.p = p;
-        this.network = new Network();
         this.success = this.failure = 0;
         
         this.trustedPeerStrat = trustedPeerStrat;
         this.attackerPeerStrat = attackerPeerStrat;
         this.attackerStrat = attackerStrat;
-        
-        this.trustedNodes = new ArrayList<>(p.getTrustedNodes());
-        this.attackerNodes = new ArrayList<>(p.getAttackerNodes());
-        this.nodes = new ArrayList<>(p.getNodes());
-                
-        DSManager dsm = new DSManager(p, this, network);
-        for (int i = 0; i < p.getTrustedNodes(); i++) {
-            trustedNodes.add(new TrustedNode(dsm, network, p, "T"+i));
-        }
-        for (int i = p.getTrustedNodes(); i < p.getNodes(); i++) {
-            attackerNodes.add(new AttackerNode(dsm, network, p, "A"+(i-p.getTrustedNodes())));
-        }
-        nodes.addAll(trustedNodes);
-        nodes.addAll(attackerNodes);
-
-        network.setNodes(nodes);
     }
     
-    private void createPeers() {
+    private void createPeers(Network network, ArrayList<Node> trustedNodes, ArrayList<Node> attackerNodes) {
         long maxTrustedLatency = trustedPeerStrat.connectPeers(trustedNodes);
         long maxAttackerLatency = attackerPeerStrat.connectPeers(attackerNodes);
         long maxLatency = Math.max(maxTrustedLatency, maxAttackerLatency);
@@ -81,50 +76,124 @@ public class DSSimulation {
     }
 
     /**
-     * Starts this Simulation.
+     * Starts this Simulation. Up to the configured number of parallel runs
+     * are executed at the same time.
      */  
     public void start() {
-        while(success+failure < p.getRuns()){
-            createPeers();
-            p.getConfirmationsIntParameter().next();
-            network.run();
+        if(p.getTrace() != null){
+            try{
+                trace = new Trace(p.getTrace());
+            }catch(IOException e){
+                Logger.err(Level.WARNING, "Could not create trace file: " + e.getMessage());
+            }
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(p.getParallelRuns());
+        for (int i = 0; i < p.getRuns(); i++) {
+            pool.execute(this::runAttempt);
+        }
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {}
+        
+        if(trace != null){
+            try{
+                trace.close();
+            }catch(IOException e){
+                Logger.err(Level.WARNING, "Could not write trace file: " + e.getMessage());
+            }
+            trace = null;
         }
         
         Logger.log(Level.INFO, String.format(
                 "Successful Double Spends: %d\n"
+                + "Skipped attempts: %d of %d\n"
                 + "Ratio of trusted stale blocks: %s\n"
                 + "Ratio of attacker stale blocks: %s",
-                success, ""+((double)tStaleBlocks)/tBlocks, ""+((double)aStaleBlocks)/aBlocks
+                success, skipped, p.getRuns(), ""+((double)tStaleBlocks)/tBlocks, ""+((double)aStaleBlocks)/aBlocks
         ));
+        Logger.flush();
+    }
+    
+    /**
+     * Runs a single Double Spend attempt on its own Network of newly created Nodes.
+     * Calling thread is blocked until the attempt has been reported. Attempts whose
+     * run has been aborted because deliveries fell behind are repeated, up to
+     * MAX_RETRIES times before the attempt is skipped.
+     */
+    private void runAttempt() {
+        for (int i = 0; i <= MAX_RETRIES; i++) {
+            if(attempt())
+                return;
+            Logger.log(Level.FINE, "Run aborted, repeating attempt");
+        }
+        Logger.err(Level.SEVERE, "Attempt aborted " + (MAX_RETRIES + 1) + " times, skipping it");
+        synchronized(this) {
+            skipped++;
+        }
+    }
+    
+    /**
+     * @return False if the run has been aborted and nothing has been reported
+     */
+    private boolean attempt() {
+        int confirmations = p.getConfirmationsIntParameter().next();
+        int run = runCounter.getAndIncrement();
+        Network network = p.createNetwork();
+        network.setTrace(trace, run);
+        if(p.collectMetrics())
+            network.setMetrics(new Metrics(p.getNodes()));
+        DSManager dsm = new DSManager(p, this, network);
+        
+        ArrayList<Node> trustedNodes = new ArrayList<>(p.getTrustedNodes());
+        ArrayList<Node> attackerNodes = new ArrayList<>(p.getAttackerNodes());
+        ArrayList<Node> nodes = new ArrayList<>(p.getNodes());
+        for (int i = 0; i < p.getTrustedNodes(); i++) {
+            trustedNodes.add(new TrustedNode(dsm, network, p, confirmations, "T"+i));
+        }
+        for (int i = p.getTrustedNodes(); i < p.getNodes(); i++) {
+            attackerNodes.add(new AttackerNode(dsm, network, p, "A"+(i-p.getTrustedNodes())));
+        }
+        nodes.addAll(trustedNodes);
+        nodes.addAll(attackerNodes);
+        
+        createPeers(network, trustedNodes, attackerNodes);
+        network.setNodes(nodes);
+        network.run();
+        
+        Metrics metrics = network.getMetrics();
+        if(metrics != null){
+            Logger.log(Level.FINE, () -> "Run " + run + ": " + metrics.summary());
+            Logger.log(Level.FINEST, metrics::perNode);
+        }
+        return !network.aborted();
     }
     
     /**
-     * Called after each (un-)successful Double Spend attempt. Stops the network so
-     * a new run of the Simulation can be started.
+     * Called after each (un-)successful Double Spend attempt. The results are added
+     * to the overall results of this Simulation.
      * @param successful Wether the Double Spend attempt was successful
      * @param attackerChain The final length of the attacker fork of the Blockchain
      * @param trustedChain The final length of the Blockchain created by the Network of trusted Nodes
      * @param aSB The number of stale blocks mined by the attacking Network
      * @param tSB The number of stale blocks mined by the trusted Network
      */
-    public void report(boolean successful, int attackerChain, int trustedChain, 
+    public synchronized void report(boolean successful, int attackerChain, int trustedChain, 
             int aSB, int tSB) {
         
         if(successful){
             success++;
-            Logger.log(Level.FINE, String.format("%d: SUCCESS t:%d a:%d", 
-                    success+failure,trustedChain,attackerChain));
+            Logger.log(Level.FINE, "%d: SUCCESS t:%d a:%d", 
+                    success+failure,trustedChain,attackerChain);
         }else{
             failure++;
-            Logger.log(Level.FINE, String.format("%d: FAILURE t:%d a:%d", 
-                    success+failure,trustedChain,attackerChain));
+            Logger.log(Level.FINE, "%d: FAILURE t:%d a:%d", 
+                    success+failure,trustedChain,attackerChain);
         }
         
         aBlocks += attackerChain+aSB;
         tBlocks += trustedChain+tSB;
         aStaleBlocks += aSB;
         tStaleBlocks += tSB;
-        
-        network.stop();
     }
 }
@@ -1,7 +1,12 @@
 package DoubleSpend;
 
+import Blockchain.EventNetwork;
+import Blockchain.Network;
 import Blockchain.Peers.ConstantPeerStrategy;
+import Blockchain.Peers.EuclideanKnnPeerStrategy;
 import Blockchain.Peers.EuclideanPeerStrategy;
+import Blockchain.Peers.FilePeerStrategy;
+import Blockchain.Peers.GraphPeerStrategy;
 import Blockchain.Peers.PeerStrategy;
 import Blockchain.Peers.RndGraphPeerStrategy;
 import Blockchain.Util.Randomizable;
@@ -9,7 +14,6 @@ import Blockchain.Util.Util;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.Properties;
-import java.util.Random;
 import java.util.logging.Level;
 
 public class Parameters {
@@ -37,6 +41,9 @@ public class Parameters {
     
     //Number of Simulation runs
     private final int runs;
+    
+    //Number of Simulation runs executed at the same time
+    private final int parallelRuns;
 
     //Minimum probability for attackers to catch up
     private final double epsilon;
@@ -51,6 +58,12 @@ public class Parameters {
     
     //Controls amount of console output (INFO < FINE < FINER < FINEST)
     private final Level logLevel;
+    //Wether console output is written by a background thread
+    private final boolean logAsync;
+    //The file events of all Nodes are recorded to, null if tracing is disabled
+    private final String trace;
+    //Wether counters and histograms are collected and logged for every run
+    private final boolean metrics;
     
     //The strategies used to create trusted and attacking networks
     private final PeerStrategy tPeerStrat;
@@ -58,6 +71,32 @@ public class Parameters {
     
     //The strategy used to connect the trusted network with the attacking network
     private final ConnectionStrategy connStrat;
+    
+    //The engine executing the Network
+    private final EngineEnum engine;
+    
+    //Virtual duration in milliseconds of one mining round in event driven Networks
+    private final double roundTime;
+    
+    //The way Nodes perform their attempts to find a new block
+    private final MiningEnum mining;
+    
+    //The way transmissions of Blockchains are scheduled in threaded Networks
+    private final DeliveryEnum delivery;
+    
+    //The way Blockchains propagate through graph based networks
+    private final PropagationEnum propagation;
+    
+    //Wether graph based topologies are reused across runs while their parameters are unchanged
+    private final boolean cacheTopology;
+    
+    //Bounds of the number of threads delivering transmissions in threaded Networks
+    private final int minDeliveryThreads;
+    private final int maxDeliveryThreads;
+    
+    //Mean delivery skew in milliseconds which flags or aborts a run, 0 to disable
+    private final double skewThreshold;
+    private final SkewEnum skewAction;
 
     public Parameters(ParametersBuilder b) {
         this.trustedNodes = b.trustedNodes;
@@ -70,11 +109,25 @@ public class Parameters {
         this.trustedGraphDensity = b.trustedGraphDensity;
         this.attackerGraphDensity = b.attackerGraphDensity;
         this.runs = b.runs;
+        this.parallelRuns = b.parallelRuns;
         this.epsilon = b.epsilon;
         this.logLevel = b.logLevel;
+        this.logAsync = b.logAsync;
+        this.trace = b.trace;
+        this.metrics = b.metrics;
         this.tPeerStrat = b.tPeerStrat;
         this.aPeerStrat = b.aPeerStrat;
         this.connStrat = b.connStrat;
+        this.engine = b.engine;
+        this.roundTime = b.roundTime;
+        this.mining = b.mining;
+        this.delivery = b.delivery;
+        this.propagation = b.propagation;
+        this.cacheTopology = b.cacheTopology;
+        this.minDeliveryThreads = b.minDeliveryThreads;
+        this.maxDeliveryThreads = b.maxDeliveryThreads;
+        this.skewThreshold = b.skewThreshold;
+        this.skewAction = b.skewAction;
         
         nodes = trustedNodes + attackerNodes;
         
@@ -199,6 +252,13 @@ public class Parameters {
         return runs;
     }
                     
+    /**
+     * @return The number of double-spend attempts executed at the same time, each on its own Network.
+     */
+    public int getParallelRuns() {
+        return parallelRuns;
+    }
+                    
     /**
      * @return The fault-tolerance defining the maximum trusted lead and blockchain length resulting in a failed double-spend attempt.
      */
@@ -233,6 +293,27 @@ public class Parameters {
     public Level getLogLevel() {
         return logLevel;
     }
+    
+    /**
+     * @return Wether console output is written asynchronously by a background thread.
+     */
+    public boolean logAsync() {
+        return logAsync;
+    }
+    
+    /**
+     * @return The path and filename of the trace file, null if tracing is disabled.
+     */
+    public String getTrace() {
+        return trace;
+    }
+    
+    /**
+     * @return Wether counters and histograms are collected and logged for every run.
+     */
+    public boolean collectMetrics() {
+        return metrics;
+    }
                     
     /**
      * @return The PeerStrategy used by the trusted network.
@@ -254,6 +335,100 @@ public class Parameters {
     public ConnectionStrategy getConnectionStrategy() {
         return connStrat;
     }
+                    
+    /**
+     * @return The engine executing the Network.
+     */
+    public EngineEnum getEngine() {
+        return engine;
+    }
+                    
+    /**
+     * @return The virtual duration in milliseconds of one mining round in event driven Networks.
+     */
+    public double getRoundTime() {
+        return roundTime;
+    }
+    
+    /**
+     * @return The way Nodes perform their attempts to find a new block.
+     */
+    public MiningEnum getMining() {
+        return mining;
+    }
+    
+    /**
+     * @return The way transmissions of Blockchains are scheduled in threaded Networks.
+     */
+    public DeliveryEnum getDelivery() {
+        return delivery;
+    }
+    
+    /**
+     * @return The way Blockchains propagate through graph based networks.
+     */
+    public PropagationEnum getPropagation() {
+        return propagation;
+    }
+    
+    /**
+     * @return Wether graph based topologies are reused across runs while their parameters are unchanged.
+     */
+    public boolean cacheTopology() {
+        return cacheTopology;
+    }
+    
+    /**
+     * @return The initial and minimum number of threads delivering transmissions in threaded Networks.
+     */
+    public int getMinDeliveryThreads() {
+        return minDeliveryThreads;
+    }
+    
+    /**
+     * @return The maximum number of threads delivering transmissions in threaded Networks.
+     */
+    public int getMaxDeliveryThreads() {
+        return maxDeliveryThreads;
+    }
+    
+    /**
+     * @return The mean delivery skew in milliseconds which flags or aborts a run, 0 if disabled.
+     */
+    public double getSkewThreshold() {
+        return skewThreshold;
+    }
+    
+    /**
+     * @return What happens to runs whose delivery skew exceeds the threshold.
+     */
+    public SkewEnum getSkewAction() {
+        return skewAction;
+    }
+    
+    /**
+     * @return A new Network executed by the engine defined by these Parameters.
+     */
+    public Network createNetwork() {
+        Network network;
+        switch(engine){
+            case EVENT:
+                network = new EventNetwork(roundTime);
+                break;
+            case VIRTUAL:
+                network = new Network();
+                network.setVirtualThreads(true);
+                break;
+            case THREADED:
+            default:
+                network = new Network();
+        }
+        network.setGeometricMining(mining == MiningEnum.GEOMETRIC);
+        network.setTimingWheel(delivery == DeliveryEnum.WHEEL);
+        network.setDeliveryThreads(minDeliveryThreads, maxDeliveryThreads);
+        network.setSkewThreshold(skewThreshold, skewAction == SkewEnum.ABORT);
+        return network;
+    }
     
     @Override
     public String toString() {
@@ -269,16 +444,15 @@ public class Parameters {
                 + "Trusted Strategy: %s\n"
                 + "Attacker Strategy: %s\n"
                 + "Connection Strategy: %s\n"
-                + "Runs: %d, Epsilon: %s"
+                + "Runs: %d (%d parallel), Epsilon: %s, Engine: %s, Mining: %s, Delivery: %s, Propagation: %s, Topology cache: %s"
                 , trustedNodes, attackerNodes, ""+difficulty, conf
-                , tPeerStrat, aPeerStrat, connStrat, runs, ""+epsilon);
+                , tPeerStrat, aPeerStrat, connStrat, runs, parallelRuns, ""+epsilon, engine, mining, delivery, propagation, cacheTopology);
     }
     
     public static class IntParameter implements Randomizable<Integer> {
-        private int value;
+        private volatile int value;
         private int upper;
         private int lower;
-        private Random rng;
         private boolean randomized;
         
         /**
@@ -314,24 +488,22 @@ public class Parameters {
             if(lower < 0 || lower > upper)
                 throw new IllegalArgumentException("Negative or invalid randomization bounds");
             randomized = true;
-            this.rng = new Random();
             this.upper = upper;
             this.lower = lower;
         }
         
         @Override
-        public Integer next(){
+        public synchronized Integer next(){
             if(!randomized || upper <= lower)
                 return value;
-            return value = rng.nextInt((upper - lower) + 1) + lower;
+            return value = Util.random().nextInt((upper - lower) + 1) + lower;
         }  
     }
     
     public static class DoubleParameter implements Randomizable<Double> {
-        private double value;
+        private volatile double value;
         private double upper;
         private double lower;
-        private Random rng;
         private boolean randomized;
         
         /**
@@ -367,26 +539,45 @@ public class Parameters {
             if(lower < 0 || lower > upper)
                 throw new IllegalArgumentException("Negative or invalid randomization bounds");
             randomized = true;
-            this.rng = new Random();
             this.upper = upper;
             this.lower = lower;
         }
         
         @Override
-        public Double next(){
+        public synchronized Double next(){
             if(!randomized || upper <= lower)
                 return value;
-            return value = lower + (upper - lower) * rng.nextDouble();
+            return value = lower + (upper - lower) * Util.random().nextDouble();
         }  
     }
     
     public enum PeerStrategyEnum {
-        CONSTANT, EUCLIDEAN, RANDOM
+        CONSTANT, EUCLIDEAN, EUCLIDEAN_KNN, RANDOM, FILE
     }
     
     public enum ConnectionStrategyEnum {
         CONSTANT
     }
+    
+    public enum EngineEnum {
+        THREADED, VIRTUAL, EVENT
+    }
+    
+    public enum MiningEnum {
+        BERNOULLI, GEOMETRIC
+    }
+    
+    public enum DeliveryEnum {
+        EXECUTOR, WHEEL
+    }
+    
+    public enum PropagationEnum {
+        MESH, RELAY
+    }
+    
+    public enum SkewEnum {
+        FLAG, ABORT
+    }
 
     public static class ParametersBuilder {
 
@@ -401,13 +592,28 @@ public class Parameters {
         private DoubleParameter trustedGraphDensity;
         private DoubleParameter attackerGraphDensity;
         private int runs;
+        private int parallelRuns;
         private double epsilon;
         private Level logLevel;
+        private boolean logAsync;
+        private String trace;
+        private boolean metrics;
         private PeerStrategy tPeerStrat;
         private PeerStrategy aPeerStrat;
         private ConnectionStrategy connStrat;
+        private EngineEnum engine;
+        private double roundTime;
+        private MiningEnum mining;
+        private DeliveryEnum delivery;
+        private PropagationEnum propagation;
+        private boolean cacheTopology;
+        private int minDeliveryThreads, maxDeliveryThreads;
+        private double skewThreshold;
+        private SkewEnum skewAction;
         
         private PeerStrategyEnum tps,aps;
+        private String trustedTopology, attackerTopology;
+        private int knnNeighbors, knnLongLinks;
         private ConnectionStrategyEnum cs;
 
         public ParametersBuilder() {
@@ -422,11 +628,27 @@ public class Parameters {
             this.trustedGraphDensity = new DoubleParameter(0.8);
             this.attackerGraphDensity = new DoubleParameter(0.8);
             this.runs          = 100;
+            this.parallelRuns  = 1;
             this.epsilon       = 0.00001;
             this.logLevel      = Level.FINE;
+            this.logAsync      = false;
+            this.trace         = null;
+            this.metrics       = false;
             this.tps = PeerStrategyEnum.RANDOM;
             this.aps = PeerStrategyEnum.RANDOM;
             this.cs = ConnectionStrategyEnum.CONSTANT;
+            this.engine = EngineEnum.THREADED;
+            this.roundTime = 0.1;
+            this.mining = MiningEnum.BERNOULLI;
+            this.delivery = DeliveryEnum.EXECUTOR;
+            this.propagation = PropagationEnum.MESH;
+            this.cacheTopology = false;
+            this.minDeliveryThreads = 10;
+            this.maxDeliveryThreads = 64;
+            this.skewThreshold = 5;
+            this.skewAction = SkewEnum.FLAG;
+            this.knnNeighbors = 8;
+            this.knnLongLinks = 0;
         }
 
         /**
@@ -611,6 +833,20 @@ public class Parameters {
             return this;
         }
 
+        /**
+         * Double-spend attempts are independent and can be executed at the same time, each on its own Network.
+         * Running Networks of the THREADED engine in parallel affects their timing, which is why it is
+         * mainly intended for the EVENT engine.
+         * @param parallelRuns The number of double-spend attempts executed at the same time. Default value: 1
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setParallelRuns(int parallelRuns) {
+            if(parallelRuns <= 0)
+                throw new IllegalArgumentException("Non positive number of parallel runs");
+            this.parallelRuns = parallelRuns;
+            return this;
+        }
+
         /**
          * @param epsilon The fault-tolerance defining the maximum trusted lead and blockchain length resulting in a failed double-spend attempt. Default value: 0.00001
          * @return The ParametersBuilder instance.
@@ -633,6 +869,42 @@ public class Parameters {
             return this;
         }
 
+        /**
+         * Sets wether console output is handed to a background writer through a lock-free 
+         * ring buffer, so logging threads don't synchronize on the console. Applied by Main
+         * for whichever simulation it starts.
+         * @param logAsync Wether console output is written asynchronously. Default value: false
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setLogAsync(boolean logAsync) {
+            this.logAsync = logAsync;
+            return this;
+        }
+
+        /**
+         * Sets the file all events of all Nodes are recorded to. The resulting binary
+         * trace can be examined with Blockchain.TraceAnalyzer. Tracing doesn't change
+         * which deliveries are processed, those dropped on delivery are recorded as DROP.
+         * @param trace The path and filename of the trace file, null or empty to disable tracing. Default value: null
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setTrace(String trace) {
+            this.trace = trace == null || trace.isEmpty() ? null : trace;
+            return this;
+        }
+
+        /**
+         * Sets wether the events of all Nodes are counted and the delivery of Blockchains 
+         * is measured. A summary is logged after every run at level FINE, the counts 
+         * of every Node at level FINEST.
+         * @param metrics Wether metrics are collected. Default value: false
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setMetrics(boolean metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
         /**
          * Sets the PeerStrategy used by the trusted network.
          * @param tPeerStrat The PeerStrategy defined by its Enum value. Default value: RANDOM
@@ -652,6 +924,54 @@ public class Parameters {
             this.aps = aPeerStrat;
             return this;
         }
+        
+        /**
+         * Sets the number of nearest neighbors each Node connects to if the PeerStrategy is EUCLIDEAN_KNN.
+         * @param knnNeighbors The number of nearest neighbors. Default value: 8
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setKnnNeighbors(int knnNeighbors) {
+            if(knnNeighbors <= 0)
+                throw new IllegalArgumentException("Non positive number of nearest neighbors");
+            this.knnNeighbors = knnNeighbors;
+            return this;
+        }
+        
+        /**
+         * Sets the number of random long distance links of each Node if the PeerStrategy is EUCLIDEAN_KNN.
+         * @param knnLongLinks The number of long distance links. Default value: 0
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setKnnLongLinks(int knnLongLinks) {
+            if(knnLongLinks < 0)
+                throw new IllegalArgumentException("Negative number of long links");
+            this.knnLongLinks = knnLongLinks;
+            return this;
+        }
+        
+        /**
+         * Sets the topology file used by the trusted network if its PeerStrategy is FILE.
+         * Text edge lists contain one undirected edge "from to [latency]" per line, edges 
+         * without latency use the trusted latency. Binary edge lists are described in GraphLoader.
+         * @param trustedTopology The path and filename of the topology file.
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setTrustedTopology(String trustedTopology) {
+            this.trustedTopology = trustedTopology;
+            return this;
+        }
+        
+        /**
+         * Sets the topology file used by the attacking network if its PeerStrategy is FILE.
+         * Text edge lists contain one undirected edge "from to [latency]" per line, edges 
+         * without latency use the attacker latency. Binary edge lists are described in GraphLoader.
+         * @param attackerTopology The path and filename of the topology file.
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setAttackerTopology(String attackerTopology) {
+            this.attackerTopology = attackerTopology;
+            return this;
+        }
 
         /**
          * Sets the ConnectionStrategy used by the attacking network network to connect to the trusted network.
@@ -664,7 +984,8 @@ public class Parameters {
         }
         
         /**
-         * Sets the PeerStrategy used by the trusted network.
+         * Sets the PeerStrategy used by the trusted network. Propagation mode and topology
+         * cache are not applied to it.
          * @param tPeerStrat The concrete PeerStrategy instance to be used. Default value: RANDOM
          * @return The ParametersBuilder instance.
          */
@@ -675,7 +996,8 @@ public class Parameters {
         }
 
         /**
-         * Sets the PeerStrategy used by the attacking network.
+         * Sets the PeerStrategy used by the attacking network. Propagation mode and topology
+         * cache are not applied to it.
          * @param aPeerStrat The concrete PeerStrategy instance to be used. Default value: RANDOM
          * @return The ParametersBuilder instance.
          */
@@ -696,20 +1018,158 @@ public class Parameters {
             return this;
         }
 
+        /**
+         * Sets the engine executing the Network. THREADED runs each Node on its own thread
+         * in real time, VIRTUAL does the same on virtual threads (Java 21 and later), 
+         * EVENT processes mining rounds and transmissions as events on a virtual clock.
+         * @param engine The engine defined by its Enum value. Default value: THREADED
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setEngine(EngineEnum engine) {
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * @param roundTime The virtual duration in milliseconds of one mining round in event driven Networks. Default value: 0.1
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setRoundTime(double roundTime) {
+            if(roundTime <= 0)
+                throw new IllegalArgumentException("Non positive round time");
+            this.roundTime = roundTime;
+            return this;
+        }
+
+        /**
+         * Sets the way Nodes perform their attempts to find a new block. BERNOULLI draws 
+         * a random number for each trial, GEOMETRIC samples the number of trials until the 
+         * next block in a single draw, resulting in the same distribution of block times.
+         * @param mining The mining mode defined by its Enum value. Default value: BERNOULLI
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setMining(MiningEnum mining) {
+            this.mining = mining;
+            return this;
+        }
+
+        /**
+         * Sets the way transmissions of Blockchains are scheduled in THREADED and VIRTUAL Networks.
+         * EXECUTOR uses a ScheduledExecutorService, WHEEL uses a hierarchical timing wheel with 
+         * constant time insertion and expiry.
+         * @param delivery The delivery mode defined by its Enum value. Default value: EXECUTOR
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setDelivery(DeliveryEnum delivery) {
+            this.delivery = delivery;
+            return this;
+        }
+
+        /**
+         * Sets the way Blockchains propagate through graph based (RANDOM) networks.
+         * MESH connects every pair of Nodes with the latency of their shortest path,
+         * RELAY only connects neighbors in the graph, which relay received Blockchains,
+         * Trusted Nodes including the double-spending ones they ignore until confirmation.
+         * @param propagation The propagation mode defined by its Enum value. Default value: MESH
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setPropagation(PropagationEnum propagation) {
+            this.propagation = propagation;
+            return this;
+        }
+
+        /**
+         * Sets wether graph based (RANDOM) topologies and their shortest paths are reused
+         * across runs. As long as no parameter of a topology is randomized, every run uses
+         * the same graph. If only its latency is randomized, the structure is reused and
+         * only the latencies are resampled. EUCLIDEAN_KNN and FILE topologies have no
+         * latency parameter, their latencies stay fixed while the graph is cached.
+         * @param cacheTopology Wether topologies are cached. Default value: false
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setCacheTopology(boolean cacheTopology) {
+            this.cacheTopology = cacheTopology;
+            return this;
+        }
+
+        /**
+         * Sets the initial and minimum size of the pool delivering transmissions in THREADED 
+         * Networks. While deliveries fall behind their latency the pool grows up to its maximum size.
+         * @param minDeliveryThreads The minimum number of delivery threads. Default value: 10
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setMinDeliveryThreads(int minDeliveryThreads) {
+            if(minDeliveryThreads <= 0)
+                throw new IllegalArgumentException("Non positive number of delivery threads");
+            this.minDeliveryThreads = minDeliveryThreads;
+            return this;
+        }
+
+        /**
+         * Sets the maximum size of the pool delivering transmissions in THREADED Networks.
+         * @param maxDeliveryThreads The maximum number of delivery threads. Default value: 64
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setMaxDeliveryThreads(int maxDeliveryThreads) {
+            if(maxDeliveryThreads <= 0)
+                throw new IllegalArgumentException("Non positive number of delivery threads");
+            this.maxDeliveryThreads = maxDeliveryThreads;
+            return this;
+        }
+
+        /**
+         * Sets the mean delay in milliseconds by which transmissions in THREADED and VIRTUAL 
+         * Networks may arrive later than their latency. Runs exceeding it are handled 
+         * according to the skew action.
+         * @param skewThreshold The maximum mean skew in milliseconds, 0 to disable. Default value: 5
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setSkewThreshold(double skewThreshold) {
+            if(skewThreshold < 0)
+                throw new IllegalArgumentException("Negative skew threshold");
+            this.skewThreshold = skewThreshold;
+            return this;
+        }
+
+        /**
+         * Sets what happens to runs exceeding the skew threshold. FLAG logs a warning, 
+         * ABORT discards the run and repeats it.
+         * @param skewAction The skew action defined by its Enum value. Default value: FLAG
+         * @return The ParametersBuilder instance.
+         */
+        public ParametersBuilder setSkewAction(SkewEnum skewAction) {
+            this.skewAction = skewAction;
+            return this;
+        }
+
         /**
          * Instantiates Peer and Connection strategies as defined by the ParametersBuilder.
          * @return the Parameters instance.
          */
         public Parameters build() {
+            if(maxDeliveryThreads < minDeliveryThreads)
+                throw new IllegalArgumentException("Maximum number of delivery threads below minimum");
             if(tps != null)
-                tPeerStrat = buildPeerStrat(tps);
+                tPeerStrat = configure(buildPeerStrat(tps, trustedTopology, trustedLatency, trustedGraphDensity));
             if(aps != null)
-                aPeerStrat = buildPeerStrat(aps);
+                aPeerStrat = configure(buildPeerStrat(aps, attackerTopology, attackerLatency, attackerGraphDensity));
             if(cs != null)
                 connStrat = buildConnStrat();
             return new Parameters(this);
         }
         
+        /**
+         * Applies propagation mode and topology cache to a PeerStrategy built by this
+         * ParametersBuilder. PeerStrategy instances set by the caller keep their own settings.
+         */
+        private PeerStrategy configure(PeerStrategy ps) {
+            if(ps instanceof GraphPeerStrategy) {
+                ((GraphPeerStrategy) ps).setRelay(propagation == PropagationEnum.RELAY);
+                ((GraphPeerStrategy) ps).setCache(cacheTopology);
+            }
+            return ps;
+        }
+        
         /**
          * Initializes this ParametersBuilder instance as specified by the property file.
          * @param fileName The path and filename of the property file.
@@ -734,11 +1194,29 @@ public class Parameters {
                     setDoubleBounds(trustedGraphDensity, getDoubleBounds("DENS_TRUSTED_BOUNDS")).
                     setDoubleBounds(attackerGraphDensity, getDoubleBounds("DENS_ATTACKER_BOUNDS")).
                     setRuns(getInteger("RUNS", runs)).
+                    setParallelRuns(getInteger("PARALLEL_RUNS", parallelRuns)).
                     setEpsilon(getDouble("EPSILON", epsilon)).
                     setLogLevel(getLevel("LOGGING", logLevel)).
+                    setLogAsync(getBoolean("LOG_ASYNC", logAsync)).
+                    setTrace(p.getProperty("TRACE", trace)).
+                    setMetrics(getBoolean("METRICS", metrics)).
                     setTrustedPeerStrategy(getPeerStrat("PS_TRUSTED", tps)). 
                     setAttackerPeerStrategy(getPeerStrat("PS_ATTACKER", aps)).
-                    setConnectionStrategy(getConnStrat("CONN_STRAT", cs));
+                    setKnnNeighbors(getInteger("KNN_NEIGHBORS", knnNeighbors)).
+                    setKnnLongLinks(getInteger("KNN_LONG_LINKS", knnLongLinks)).
+                    setTrustedTopology(p.getProperty("TOPOLOGY_TRUSTED", trustedTopology)).
+                    setAttackerTopology(p.getProperty("TOPOLOGY_ATTACKER", attackerTopology)).
+                    setConnectionStrategy(getConnStrat("CONN_STRAT", cs)).
+                    setEngine(getEngine("ENGINE", engine)).
+                    setRoundTime(getDouble("ROUND_TIME", roundTime)).
+                    setMining(getMining("MINING", mining)).
+                    setDelivery(getDelivery("DELIVERY", delivery)).
+                    setPropagation(getPropagation("PROPAGATION", propagation)).
+                    setCacheTopology(getBoolean("CACHE_TOPOLOGY", cacheTopology)).
+                    setMinDeliveryThreads(getInteger("DELIVERY_THREADS_MIN", minDeliveryThreads)).
+                    setMaxDeliveryThreads(getInteger("DELIVERY_THREADS_MAX", maxDeliveryThreads)).
+                    setSkewThreshold(getDouble("SKEW_THRESHOLD", skewThreshold)).
+                    setSkewAction(getSkewAction("SKEW_ACTION", skewAction));
         }
         
         private PeerStrategyEnum getPeerStrat(String key, PeerStrategyEnum defaultValue) {
@@ -751,8 +1229,12 @@ public class Parameters {
                     return PeerStrategyEnum.CONSTANT;
                 case "EUCLIDEAN":
                     return PeerStrategyEnum.EUCLIDEAN;
+                case "EUCLIDEAN_KNN":
+                    return PeerStrategyEnum.EUCLIDEAN_KNN;
                 case "RANDOM":
                     return PeerStrategyEnum.RANDOM;
+                case "FILE":
+                    return PeerStrategyEnum.FILE;
                 default:
                     return defaultValue;
             }
@@ -771,6 +1253,83 @@ public class Parameters {
             }
         }
         
+        private EngineEnum getEngine(String key, EngineEnum defaultValue) {
+            String value = p.getProperty(key);
+            if (value == null) {
+                return defaultValue;
+            }
+            switch(value.toUpperCase()) {
+                case "THREADED":
+                    return EngineEnum.THREADED;
+                case "VIRTUAL":
+                    return EngineEnum.VIRTUAL;
+                case "EVENT":
+                    return EngineEnum.EVENT;
+                default:
+                    return defaultValue;
+            }
+        }
+        
+        private MiningEnum getMining(String key, MiningEnum defaultValue) {
+            String value = p.getProperty(key);
+            if (value == null) {
+                return defaultValue;
+            }
+            switch(value.toUpperCase()) {
+                case "BERNOULLI":
+                    return MiningEnum.BERNOULLI;
+                case "GEOMETRIC":
+                    return MiningEnum.GEOMETRIC;
+                default:
+                    return defaultValue;
+            }
+        }
+        
+        private SkewEnum getSkewAction(String key, SkewEnum defaultValue) {
+            String value = p.getProperty(key);
+            if (value == null) {
+                return defaultValue;
+            }
+            switch(value.toUpperCase()) {
+                case "FLAG":
+                    return SkewEnum.FLAG;
+                case "ABORT":
+                    return SkewEnum.ABORT;
+                default:
+                    return defaultValue;
+            }
+        }
+        
+        private DeliveryEnum getDelivery(String key, DeliveryEnum defaultValue) {
+            String value = p.getProperty(key);
+            if (value == null) {
+                return defaultValue;
+            }
+            switch(value.toUpperCase()) {
+                case "EXECUTOR":
+                    return DeliveryEnum.EXECUTOR;
+                case "WHEEL":
+                    return DeliveryEnum.WHEEL;
+                default:
+                    return defaultValue;
+            }
+        }
+        
+        private PropagationEnum getPropagation(String key, PropagationEnum defaultValue) {
+            String value = p.getProperty(key);
+            if (value == null) {
+                return defaultValue;
+            }
+            switch(value.toUpperCase()) {
+                case "MESH":
+                    return PropagationEnum.MESH;
+                case "RELAY":
+                    return PropagationEnum.RELAY;
+                default:
+                    return defaultValue;
+            }
+        }
+        
         private double getDouble(String key, double defaultValue) {
             String value = p.getProperty(key);
             if (value == null) {
@@ -804,6 +1363,21 @@ public class Parameters {
             return this;
         }
 
+        private boolean getBoolean(String key, boolean defaultValue) {
+            String value = p.getProperty(key);
+            if (value == null) {
+                return defaultValue;
+            }
+            switch(value.toUpperCase()) {
+                case "TRUE":
+                    return true;
+                case "FALSE":
+                    return false;
+                default:
+                    return defaultValue;
+            }
+        }
+        
         private int getInteger(String key, int defaultValue) {
             String value = p.getProperty(key);
             if (value == null) {
@@ -856,14 +1430,21 @@ public class Parameters {
             }
         }
         
-        private PeerStrategy buildPeerStrat(PeerStrategyEnum ps){
+        private PeerStrategy buildPeerStrat(PeerStrategyEnum ps, String topology, IntParameter latency,
+                DoubleParameter density){
             switch(ps){
                 case CONSTANT:
-                    return new ConstantPeerStrategy(attackerLatency);
+                    return new ConstantPeerStrategy(latency);
                 case EUCLIDEAN:
-                    return new EuclideanPeerStrategy(attackerLatency);
+                    return new EuclideanPeerStrategy(latency);
+                case EUCLIDEAN_KNN:
+                    return new EuclideanKnnPeerStrategy(latency, knnNeighbors, knnLongLinks);
                 case RANDOM:
-                    return new RndGraphPeerStrategy(attackerGraphDensity, attackerLatency);
+                    return new RndGraphPeerStrategy(density, latency);
+                case FILE:
+                    if(topology == null)
+                        throw new IllegalArgumentException("No topology file for PeerStrategy FILE");
+                    return new FilePeerStrategy(topology, latency.getValue());
                 default:
                     return null;
             }
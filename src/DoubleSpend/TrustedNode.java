@@ -8,11 +8,13 @@ import java.util.logging.Level;
 
 public class TrustedNode extends Node{
     private DSManager dsm;
-    private Parameters p;
     
-    public TrustedNode(DSManager dsm, Network network, Parameters p, String name) {
+    //Number of confirmations required in the current attempt
+    private final int confirmations;
+    
+    public TrustedNode(DSManager dsm, Network network, Parameters p, int confirmations, String name) {
         super(network, new DSBlockchain(p.getDifficulty(), false), name);
-        this.p = p;
+        this.confirmations = confirmations;
         this.dsm = dsm;
     }
     
@@ -30,7 +32,13 @@ public class TrustedNode extends Node{
     protected boolean ignoreBlockchain(Blockchain newChain, Node sender) {
         //Double-spending blockchains are ignored until the legitimate blockchain has been confirmed
         return ((DSBlockchain) newChain).isDoubleSpending() 
-            && ((DSBlockchain) blockchain).getLength() < p.getConfirmations();
+            && ((DSBlockchain) blockchain).getLength() < confirmations;
+    }
+    
+    @Override
+    protected boolean relaysIgnored() {
+        //The ignore only lasts until confirmation, Nodes behind this one may accept the Blockchain
+        return true;
     }
 
     @Override
@@ -38,10 +46,10 @@ public class TrustedNode extends Node{
         boolean doubleSpendingBefore = ((DSBlockchain) oldChain).isDoubleSpending();
         boolean doubleSpendingAfter = ((DSBlockchain) newChain).isDoubleSpending();
         if(doubleSpendingBefore && !doubleSpendingAfter){
-            Logger.log(Level.FINEST, String.format("%s: No longer convinced of double-spending transaction.",name));
+            Logger.log(Level.FINEST, "%s: No longer convinced of double-spending transaction.",name);
             dsm.removeConvinced();
         }else if(!doubleSpendingBefore && doubleSpendingAfter){
-            Logger.log(Level.FINEST, String.format("%s: Is now convinced of double-spending transaction.",name));
+            Logger.log(Level.FINEST, "%s: Is now convinced of double-spending transaction.",name);
             dsm.addConvinced();
         }
     }
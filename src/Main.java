@@ -3,6 +3,7 @@ import DoubleSpend.Parameters.*;
 import DoubleSpend.DSSimulation;
 import Blockchain.Peers.*;
 import StaleBlocks.SBSimulation;
+import Blockchain.Util.Logger;
 import java.io.IOException;
 
 public class Main {
@@ -23,7 +24,9 @@ public class Main {
             System.err.printf("Error loading parameters: %s\n", ex);
             System.exit(1);
         }
+        Logger.setAsync(p.logAsync());
         doubleSpend(p);
+        Logger.flush();
     }
 
     public static void doubleSpend(Parameters p) {
@@ -3,35 +3,18 @@ package StaleBlocks;
 import Blockchain.*;
 
 public class SBBlockchain extends Blockchain{
-    protected int length;
 
     public SBBlockchain(double difficulty) {
-        this(0, difficulty);
-    }
-    
-    public SBBlockchain(int length, double difficulty) {
         super(difficulty);
-        this.length = length;
     }
     
-    @Override
-    public SBBlockchain copy() {
-        return new SBBlockchain(length, difficulty);
-    }
-
-    @Override
-    public void addBlock() {
-        length++;
+    private SBBlockchain(SBBlockchain other) {
+        super(other);
     }
     
     @Override
-    public void reset(Node owner) {
-        length = 0;
-    }
-
-    @Override
-    public int getLength() {
-        return length;
+    public SBBlockchain copy() {
+        return new SBBlockchain(this);
     }
     
     @Override
@@ -41,6 +24,6 @@ public class SBBlockchain extends Blockchain{
 
     @Override
     public String toString() {
-        return String.format("[%d]",length);
+        return String.format("[%d]",getLength());
     }
 }
@@ -1,16 +1,23 @@
 package StaleBlocks;
 
+import Blockchain.BlockTree;
+import Blockchain.Blockchain;
 import Blockchain.Network;
 import Blockchain.Util.Logger;
 import DoubleSpend.Parameters;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
+/**
+ * Keeps track of the longest chain without locking. Its length is stored together
+ * with the epoch of the current run in a single long which is raised by compare-and-set.
+ * Resetting starts a new epoch, so registrations based on the state of a previous 
+ * run fail their compare-and-set instead of raising the new run's chain. 
+ * The run is reported by the single registration crossing the maximum length.
+ */
 public class SBManager {
-    //Length of longest chain
-    private int chainLength;
-    
-    //Number of stale blocks created by the network
-    private int staleBlocks;
+    //Epoch of the current run in the upper, length of the longest chain in the lower 32 bits
+    private final AtomicLong state;
     
     private Parameters p;
     private SBSimulation sim;
@@ -20,24 +27,38 @@ public class SBManager {
         this.p = p;
         this.sim = sim;
         this.network = network;
-        this.chainLength = 0;
-        this.staleBlocks = 0;
+        this.state = new AtomicLong();
+    }
+    
+    /**
+     * Forgets the longest chain before the Network is run again.
+     */
+    void reset() {
+        state.getAndUpdate(s -> ((s >>> 32) + 1) << 32);
     }
 
-    public synchronized void registerChain(int length) {
+    /**
+     * Newly found Blocks are registered to keep track of the longest chain.
+     * Once it reaches the maximum length, stale blocks and forks are counted 
+     * exactly from the tree of all mined blocks.
+     * @param chain The new Blockchain
+     */
+    public void registerChain(Blockchain chain) {
         if(network.stopped())
             return;
-        if(chainLength >= length){
-            staleBlocks++;
-            return;
-        }
-        chainLength = length;
+        int chainLength = chain.getLength();
+        long current;
+        do {
+            current = state.get();
+            if((int) current >= chainLength)
+                return;
+        } while (!state.compareAndSet(current, (current & 0xffffffff00000000L) | chainLength));
         
-        Logger.log(Level.FINE, String.format("Chain: %d",length));
+        Logger.log(Level.FINE, "Chain: %d",chainLength);
         
-        if(chainLength >= p.getMaxLength()) {
-            sim.report(chainLength, staleBlocks);
+        if(chainLength >= p.getMaxLength() && (int) current < p.getMaxLength()) {
+            BlockTree tree = chain.getTree();
+            sim.report(chainLength, tree.getStaleBlocks(chain.getTip()), tree.getForks(chain.getTip()));
         }
     }
-
 }
@@ -16,7 +16,7 @@ public class SBNode extends Node{
     
     @Override
     protected void onBlockMined(){
-        orm.registerChain(blockchain.getLength());
+        orm.registerChain(blockchain);
     }
 
     @Override
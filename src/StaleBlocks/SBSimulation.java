@@ -1,14 +1,21 @@
 package StaleBlocks;
 
+import Blockchain.Metrics;
 import Blockchain.Network;
 import Blockchain.Node;
+import Blockchain.Trace;
 import DoubleSpend.Parameters;
 import Blockchain.Peers.PeerStrategy;
 import Blockchain.Util.Logger;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.logging.Level;
 
 public class SBSimulation {
+    //Number of times the run is repeated after it has been aborted
+    private static final int MAX_RETRIES = 3;
+    
+    private Parameters p;
     private Network network;
     private SBManager orm;
     
@@ -16,6 +23,10 @@ public class SBSimulation {
     private int blocks;
     private int staleBlocks;
     
+    //Number of forks off the longest chain and length of the longest fork
+    private int forks;
+    private int longestFork;
+    
     private PeerStrategy peerStrategy;
     
     private ArrayList<Node> nodes;
@@ -26,8 +37,10 @@ public class SBSimulation {
      * @param peerStrategy The Strategy of creating the network
      */
     public SBSimulation(Parameters p, PeerStrategy peerStrategy) {
-        
-        this.network = new Network();
+        this.p = p;
+        this.network = p.createNetwork();
+        if(p.collectMetrics())
+            network.setMetrics(new Metrics(p.getNodes()));
         this.orm = new SBManager(p, this, network);
         
         this.peerStrategy = peerStrategy;
@@ -51,28 +64,83 @@ public class SBSimulation {
      * Starts this Simulation.
      */
     public void start() {
+        Trace trace = null;
+        if(p.getTrace() != null){
+            try{
+                trace = new Trace(p.getTrace());
+            }catch(IOException e){
+                Logger.err(Level.WARNING, "Could not create trace file: " + e.getMessage());
+            }
+        }
         createPeers();
+        network.setTrace(trace, 0);
         network.run();
+        for (int i = 0; network.aborted(); i++) {
+            if(i == MAX_RETRIES) {
+                Logger.err(Level.SEVERE, "Run aborted " + (MAX_RETRIES + 1) + " times, results are skewed");
+                break;
+            }
+            Logger.log(Level.FINE, "Run aborted, repeating it");
+            orm.reset();
+            if(network.getMetrics() != null)
+                network.setMetrics(new Metrics(nodes.size()));
+            network.setTrace(trace, i + 1);
+            network.run();
+        }
+        network.setTrace(null, 0);
+        if(trace != null){
+            try{
+                trace.close();
+            }catch(IOException e){
+                Logger.err(Level.WARNING, "Could not write trace file: " + e.getMessage());
+            }
+        }
+        
+        Metrics metrics = network.getMetrics();
+        if(metrics != null){
+            Logger.log(Level.FINE, metrics::summary);
+            Logger.log(Level.FINEST, metrics::perNode);
+        }
         
         Logger.log(Level.INFO, String.format(
                 "Stale blocks: %d\n"
                 + "Blocks: %d\n"
-                + "Stale block Rate: %s",
-                staleBlocks, blocks, ""+((double)staleBlocks)/blocks
+                + "Stale block Rate: %s\n"
+                + "Forks: %d, longest fork: %d",
+                staleBlocks, blocks, ""+((double)staleBlocks)/blocks, forks, longestFork
         ));
     }
     
     /**
-     * Called after (un-)successful Double Spend attempt. Stops the network so
-     * a new run of the Simulation can be started.
-     * @param chainLength
-     * @param staleBlocks
+     * Called once the maximum chain length has been reached. Stops the network so
+     * the Simulation can finish.
+     * @param chainLength The length of the longest chain
+     * @param staleBlocks The number of mined blocks not contained in the longest chain
+     * @param forks The length of each fork off the longest chain
      */
-    public void report(int chainLength, int staleBlocks) {
+    public void report(int chainLength, int staleBlocks, int[] forks) {
         blocks = chainLength+staleBlocks;
         this.staleBlocks = staleBlocks;
+        this.forks = forks.length;
+        this.longestFork = 0;
+        for(int f : forks)
+            longestFork = Math.max(longestFork, f);
         
         network.stop();
     }
+    
+    /**
+     * @return The number of blocks mined during this Simulation
+     */
+    public int getBlocks() {
+        return blocks;
+    }
+    
+    /**
+     * @return The number of stale blocks mined during this Simulation
+     */
+    public int getStaleBlocks() {
+        return staleBlocks;
+    }
 }
 
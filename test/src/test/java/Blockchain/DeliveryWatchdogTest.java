@@ -0,0 +1,71 @@
+package Blockchain;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import Blockchain.Peers.Peer;
+import Blockchain.Util.Logger;
+import StaleBlocks.SBBlockchain;
+import java.util.Arrays;
+import java.util.logging.Level;
+import org.junit.jupiter.api.Test;
+
+public class DeliveryWatchdogTest {
+
+    //Skew threshold in milliseconds, far below the duration of a slow mining round
+    //but above the scheduling jitter of delivery threads on a loaded machine
+    private static final double THRESHOLD = 25;
+
+    /**
+     * Node sleeping whenever it has processed a received Blockchain, which slows
+     * down its mining rounds.
+     */
+    private static class SlowNode extends Node {
+        private final long sleep;
+
+        SlowNode(Network network, double difficulty, long sleep, String name) {
+            super(network, new SBBlockchain(difficulty), name);
+            this.sleep = sleep;
+        }
+
+        @Override
+        protected boolean ignoreBlockchain(Blockchain newChain, Node sender) {
+            return false;
+        }
+
+        @Override
+        protected void onChoice(Blockchain oldChain, Blockchain newChain) {
+            try {
+                Thread.sleep(sleep);
+            } catch (InterruptedException e) {}
+        }
+
+        @Override
+        protected void onBlockMined() {}
+    }
+
+    @Test
+    public void slowMiningRoundDoesNotTripThreshold() throws InterruptedException {
+        Logger.setLevel(Level.OFF);
+        Network network = new Network();
+        //The sender finds a block about every round, processing it takes the recipient 200 ms
+        Node slow = new SlowNode(network, 1e-9, 200, "slow");
+        Node sender = new SlowNode(network, 0.1, 0, "sender");
+        sender.addPeer(new Peer(slow, 1));
+        network.setNodes(Arrays.asList(sender, slow));
+        network.setMaxLatency(1);
+        network.setSkewThreshold(THRESHOLD, true);
+        network.setMetrics(new Metrics(2));
+
+        Thread run = new Thread(network::run);
+        run.start();
+        Thread.sleep(1500);
+        network.stop();
+        run.join();
+
+        //Blockchains waited in the mailbox far longer than the threshold
+        assertTrue(network.getMetrics().getMailboxWait().max() > THRESHOLD * 1000);
+        assertFalse(network.aborted());
+        assertFalse(network.skewed());
+    }
+}
@@ -0,0 +1,41 @@
+package Blockchain.Util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GraphLoaderTest {
+
+    @TempDir
+    Path dir;
+
+    private String write(String content) throws IOException {
+        Path file = dir.resolve("edges.txt");
+        Files.writeString(file, content);
+        return file.toString();
+    }
+
+    @Test
+    public void edgesListedInBothDirectionsAreAddedOnce() throws IOException {
+        Graph g = GraphLoader.loadText(write("0 1 5\n1 0 7\n1 2\n1 2\n"), 10);
+        assertEquals(3, g.size());
+        //Two undirected edges, each stored in both directions
+        assertEquals(4, g.edges());
+        assertEquals(1, g.degree(0));
+        assertEquals(2, g.degree(1));
+        assertEquals(5, g.weight(g.edge(1, 0)));
+    }
+
+    @Test
+    public void selfLoopIsRejected() throws IOException {
+        String file = write("0 1\n# comment\n2 2\n");
+        IOException e = assertThrows(IOException.class, () -> GraphLoader.loadText(file, 10));
+        assertTrue(e.getMessage().startsWith(file + ":3:"), e.getMessage());
+    }
+}
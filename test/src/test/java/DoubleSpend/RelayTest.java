@@ -0,0 +1,71 @@
+package DoubleSpend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import Blockchain.EventNetwork;
+import Blockchain.Metrics;
+import Blockchain.Network;
+import Blockchain.Node;
+import Blockchain.Peers.Peer;
+import Blockchain.Scheduler;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RelayTest {
+
+    //Delivers transmissions immediately, no Node mines
+    private static final Scheduler IMMEDIATE = (task, delay) -> task.run();
+
+    private Network network;
+    private Parameters p;
+    private Metrics metrics;
+
+    @BeforeEach
+    public void setUp() {
+        network = new EventNetwork(1);
+        metrics = new Metrics(3);
+        network.setMetrics(metrics);
+        p = new Parameters.ParametersBuilder().build();
+    }
+
+    /**
+     * Connects the relaying Node to the one behind it and delivers a Blockchain
+     * of one block mined by the origin.
+     */
+    private void deliver(Node origin, Node relay, Node behind) {
+        relay.setRelay(true);
+        relay.addPeer(new Peer(behind, 1));
+        network.setNodes(Arrays.asList(relay, behind, origin));
+        relay.reset(IMMEDIATE, 0);
+        behind.reset(IMMEDIATE, 1);
+        origin.reset(IMMEDIATE, 2);
+
+        DSBlockchain chain = new DSBlockchain(p.getDifficulty(), false);
+        chain.reset(origin);
+        chain.addBlock(origin);
+        relay.receiveBlockchain(chain, origin);
+    }
+
+    @Test
+    public void attackerDoesNotRelayTrustedChain() {
+        deliver(new TrustedNode(null, network, p, 6, "trusted"),
+                new AttackerNode(null, network, p, "relay"),
+                new AttackerNode(null, network, p, "behind"));
+
+        assertEquals(1, metrics.get(Metrics.IGNORED, 0));
+        assertEquals(0, metrics.get(Metrics.SENT, 0));
+        assertEquals(0, metrics.get(Metrics.RECEIVED, 1));
+    }
+
+    @Test
+    public void trustedNodeRelaysUnconfirmedDoubleSpend() {
+        deliver(new AttackerNode(null, network, p, "attacker"),
+                new TrustedNode(null, network, p, 6, "relay"),
+                new TrustedNode(null, network, p, 6, "behind"));
+
+        assertEquals(1, metrics.get(Metrics.IGNORED, 0));
+        assertEquals(1, metrics.get(Metrics.SENT, 0));
+        assertEquals(1, metrics.get(Metrics.IGNORED, 1));
+    }
+}